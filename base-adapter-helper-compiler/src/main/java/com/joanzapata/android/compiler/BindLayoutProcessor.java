@@ -0,0 +1,373 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android.compiler;
+
+import com.joanzapata.android.BindLayout;
+import com.joanzapata.android.BindView;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardLocation;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a ViewBinder for each class annotated with {@link BindLayout},
+ * and an index class per package mapping layout ids to the generated binders.
+ * The indexes are listed in META-INF/services, so that several modules using
+ * the processor don't generate the same class.<br/>
+ * The binders resolve every {@link BindView} field in a single walk of the
+ * view tree at inflation time, then serve BaseAdapterHelper lookups from a
+ * switch over the view ids instead of a SparseArray.
+ */
+public class BindLayoutProcessor extends AbstractProcessor {
+
+    static final String BINDER_SUFFIX = "$$ViewBinder";
+
+    static final String INDEX_CLASS = "GeneratedViewBinderIndex";
+
+    /**
+     * Lists the generated index classes, read by ViewBinders
+     */
+    static final String INDEX_SERVICE = "META-INF/services/com.joanzapata.android.ViewBinders$Index";
+
+    private static final String VIEW_TYPE = "android.view.View";
+
+    private Filer filer;
+
+    private Messager messager;
+
+    private Elements elements;
+
+    private Types types;
+
+    /**
+     * Generated binders (qualified name) by layout id, accumulated over rounds
+     */
+    private final Map<Integer, String> bindersByLayout = new LinkedHashMap<Integer, String>();
+
+    /**
+     * Layout ids of the generated binders by package
+     */
+    private final Map<String, List<Integer>> layoutsByPackage = new LinkedHashMap<String, List<Integer>>();
+
+    /**
+     * Whether binders were generated since the index was written
+     */
+    private boolean indexPending;
+
+    private boolean indexWritten;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment processingEnv) {
+        super.init(processingEnv);
+        filer = processingEnv.getFiler();
+        messager = processingEnv.getMessager();
+        elements = processingEnv.getElementUtils();
+        types = processingEnv.getTypeUtils();
+    }
+
+    @Override
+    public Set<String> getSupportedAnnotationTypes() {
+        Set<String> supported = new LinkedHashSet<String>();
+        supported.add(BindLayout.class.getCanonicalName());
+        supported.add(BindView.class.getCanonicalName());
+        return supported;
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        int bindersBefore = bindersByLayout.size();
+        for (Element element : roundEnv.getElementsAnnotatedWith(BindLayout.class)) {
+            if (element.getKind() != ElementKind.CLASS) {
+                error(element, "@BindLayout can only be applied to classes");
+                continue;
+            }
+            processLayout((TypeElement) element);
+        }
+
+        for (Element element : roundEnv.getElementsAnnotatedWith(BindView.class)) {
+            if (element.getEnclosingElement().getAnnotation(BindLayout.class) == null) {
+                error(element, "@BindView fields must be declared in a class annotated with @BindLayout");
+            }
+        }
+
+        // The index is written in the first round which generates no new binder, rather than in
+        // the last round, where javac would warn that the generated file won't be compiled
+        if (bindersByLayout.size() > bindersBefore) {
+            indexPending = true;
+        } else if (indexPending) {
+            indexPending = false;
+            if (indexWritten) {
+                messager.printMessage(Diagnostic.Kind.ERROR,
+                        "@BindLayout classes generated after the " + INDEX_CLASS + " classes were written");
+            } else {
+                indexWritten = true;
+                writeIndexes();
+            }
+        }
+        return true;
+    }
+
+    private void processLayout(TypeElement type) {
+        int layoutId = type.getAnnotation(BindLayout.class).value();
+        String binderName = binderName(type);
+        String existing = bindersByLayout.get(layoutId);
+        if (existing != null) {
+            error(type, "Layout " + layoutId + " is already bound by " + existing);
+            return;
+        }
+
+        if (type.getModifiers().contains(Modifier.PRIVATE) || type.getModifiers().contains(Modifier.ABSTRACT)
+                || (type.getNestingKind().isNested() && !type.getModifiers().contains(Modifier.STATIC))) {
+            error(type, "@BindLayout classes must be concrete, non private, and static if nested");
+            return;
+        }
+        if (!hasNoArgConstructor(type)) {
+            error(type, "@BindLayout classes must have a non private no-arg constructor");
+            return;
+        }
+
+        List<VariableElement> fields = new ArrayList<VariableElement>();
+        Map<Integer, VariableElement> fieldsById = new LinkedHashMap<Integer, VariableElement>();
+        TypeMirror viewType = elements.getTypeElement(VIEW_TYPE).asType();
+        for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+            BindView bindView = field.getAnnotation(BindView.class);
+            if (bindView == null) continue;
+            Set<Modifier> modifiers = field.getModifiers();
+            if (modifiers.contains(Modifier.PRIVATE) || modifiers.contains(Modifier.STATIC)
+                    || modifiers.contains(Modifier.FINAL)) {
+                error(field, "@BindView fields must not be private, static or final");
+                continue;
+            }
+            if (!types.isAssignable(field.asType(), viewType)) {
+                error(field, "@BindView fields must be of a type extending " + VIEW_TYPE);
+                continue;
+            }
+            VariableElement duplicate = fieldsById.put(bindView.value(), field);
+            if (duplicate != null) {
+                error(field, "View id " + bindView.value() + " is already bound to " + duplicate.getSimpleName());
+                continue;
+            }
+            fields.add(field);
+        }
+
+        try {
+            writeBinder(type, binderName, fields);
+            bindersByLayout.put(layoutId, binderName);
+            String packageName = packageName(type);
+            List<Integer> layoutIds = layoutsByPackage.get(packageName);
+            if (layoutIds == null) {
+                layoutIds = new ArrayList<Integer>();
+                layoutsByPackage.put(packageName, layoutIds);
+            }
+            layoutIds.add(layoutId);
+        } catch (IOException e) {
+            error(type, "Unable to write " + binderName + ": " + e.getMessage());
+        }
+    }
+
+    private boolean hasNoArgConstructor(TypeElement type) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty()) {
+                return !constructor.getModifiers().contains(Modifier.PRIVATE);
+            }
+        }
+        return false;
+    }
+
+    private void writeBinder(TypeElement type, String binderName, List<VariableElement> fields) throws IOException {
+        String packageName = packageName(type);
+        String simpleName = binderName.substring(packageName.isEmpty() ? 0 : packageName.length() + 1);
+        String bindingType = type.getQualifiedName().toString();
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated code from base-adapter-helper-compiler. Do not modify!\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import android.view.View;\n");
+        source.append("import android.view.ViewGroup;\n");
+        source.append("import com.joanzapata.android.ViewBinder;\n\n");
+        source.append("public final class ").append(simpleName)
+                .append(" implements ViewBinder<").append(bindingType).append("> {\n\n");
+
+        source.append("    @Override\n");
+        source.append("    public ").append(bindingType).append(" bind(View root) {\n");
+        source.append("        ").append(bindingType).append(" binding = new ").append(bindingType).append("();\n");
+        if (!fields.isEmpty()) source.append("        walk(binding, root, 0);\n");
+        source.append("        return binding;\n");
+        source.append("    }\n\n");
+
+        // Depth-first like findViewById(), the first view found for an id wins,
+        // and the walk stops once every field is set
+        if (!fields.isEmpty()) {
+            source.append("    private static int walk(").append(bindingType).append(" binding, View view, int found) {\n");
+            source.append("        switch (view.getId()) {\n");
+            for (VariableElement field : fields) {
+                String name = field.getSimpleName().toString();
+                source.append("            case ").append(field.getAnnotation(BindView.class).value()).append(":\n");
+                source.append("                if (binding.").append(name).append(" == null) {\n");
+                source.append("                    binding.").append(name).append(" = (")
+                        .append(types.erasure(field.asType())).append(") view;\n");
+                source.append("                    found++;\n");
+                source.append("                }\n");
+                source.append("                break;\n");
+            }
+            source.append("        }\n");
+            source.append("        if (found < ").append(fields.size()).append(" && view instanceof ViewGroup) {\n");
+            source.append("            ViewGroup group = (ViewGroup) view;\n");
+            source.append("            for (int i = 0, count = group.getChildCount(); i < count && found < ")
+                    .append(fields.size()).append("; i++) {\n");
+            source.append("                found = walk(binding, group.getChildAt(i), found);\n");
+            source.append("            }\n");
+            source.append("        }\n");
+            source.append("        return found;\n");
+            source.append("    }\n\n");
+        }
+
+        source.append("    @Override\n");
+        source.append("    public View findView(").append(bindingType).append(" binding, int viewId) {\n");
+        if (!fields.isEmpty()) {
+            source.append("        switch (viewId) {\n");
+            for (VariableElement field : fields) {
+                source.append("            case ").append(field.getAnnotation(BindView.class).value())
+                        .append(": return binding.").append(field.getSimpleName()).append(";\n");
+            }
+            source.append("        }\n");
+        }
+        source.append("        return null;\n");
+        source.append("    }\n");
+        source.append("}\n");
+
+        write(binderName, source.toString(), type);
+    }
+
+    private void writeIndexes() {
+        List<String> indexNames = new ArrayList<String>();
+        for (Map.Entry<String, List<Integer>> entry : layoutsByPackage.entrySet()) {
+            String packageName = entry.getKey();
+            String indexName = packageName.isEmpty() ? INDEX_CLASS : packageName + "." + INDEX_CLASS;
+            try {
+                write(indexName, indexSource(packageName, entry.getValue()));
+                indexNames.add(indexName);
+            } catch (IOException e) {
+                messager.printMessage(Diagnostic.Kind.ERROR, "Unable to write " + indexName + ": " + e.getMessage());
+            }
+        }
+
+        StringBuilder services = new StringBuilder();
+        for (String indexName : indexNames) services.append(indexName).append('\n');
+        try {
+            FileObject file = filer.createResource(StandardLocation.CLASS_OUTPUT, "", INDEX_SERVICE);
+            Writer writer = file.openWriter();
+            try {
+                writer.write(services.toString());
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            messager.printMessage(Diagnostic.Kind.ERROR, "Unable to write " + INDEX_SERVICE + ": " + e.getMessage());
+        }
+    }
+
+    private String indexSource(String packageName, List<Integer> layoutIds) {
+        layoutIds = new ArrayList<Integer>(layoutIds);
+        Collections.sort(layoutIds);
+
+        StringBuilder source = new StringBuilder();
+        source.append("// Generated code from base-adapter-helper-compiler. Do not modify!\n");
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source.append("import com.joanzapata.android.ViewBinder;\n");
+        source.append("import com.joanzapata.android.ViewBinders;\n\n");
+        source.append("public final class ").append(INDEX_CLASS).append(" implements ViewBinders.Index {\n\n");
+        source.append("    @Override\n");
+        source.append("    public ViewBinder<?> get(int layoutResId) {\n");
+        source.append("        switch (layoutResId) {\n");
+        for (Integer layoutId : layoutIds) {
+            source.append("            case ").append(layoutId).append(": return new ")
+                    .append(bindersByLayout.get(layoutId))
+                    .append("();\n");
+        }
+        source.append("        }\n");
+        source.append("        return null;\n");
+        source.append("    }\n");
+        source.append("}\n");
+        return source.toString();
+    }
+
+    private void write(String qualifiedName, String source, Element... originatingElements) throws IOException {
+        JavaFileObject file = filer.createSourceFile(qualifiedName, originatingElements);
+        Writer writer = file.openWriter();
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+    }
+
+    /**
+     * The generated binder is a top level class in the package of the bound class,
+     * named after its binary name, e.g. Outer$Inner$$ViewBinder.
+     */
+    private String binderName(TypeElement type) {
+        String packageName = packageName(type);
+        String binaryName = elements.getBinaryName(type).toString();
+        String simpleBinaryName = packageName.isEmpty() ? binaryName : binaryName.substring(packageName.length() + 1);
+        return (packageName.isEmpty() ? "" : packageName + ".") + simpleBinaryName + BINDER_SUFFIX;
+    }
+
+    private String packageName(TypeElement type) {
+        PackageElement packageElement = elements.getPackageOf(type);
+        return packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+    }
+
+    private void error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
@@ -0,0 +1,70 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.joanzapata.android.AdapterExecutors.BACKGROUND;
+import static com.joanzapata.android.AdapterExecutors.MAIN;
+
+/**
+ * Computes the ListDiff of adapter updates on a background thread, and hands the
+ * result back on the UI thread unless a newer update was submitted in the meantime.
+ * @param <T> The type of the items in the list.
+ */
+final class AsyncDiffer<T> {
+
+    /**
+     * Incremented on the UI thread by each update, so that superseded results are dropped
+     */
+    private volatile int generation;
+
+    /**
+     * Diff a copy of both lists on a background thread. Must be called on the UI thread.
+     * @param callback Called on the UI thread, unless another update was submitted or cancel() called.
+     */
+    void submit(List<T> oldData, List<T> newData, final ItemComparator<T> comparator, final Callback<T> callback) {
+        final int submitted = ++generation;
+        final List<T> oldList = new ArrayList<T>(oldData);
+        final List<T> newList = newData == null ? new ArrayList<T>() : new ArrayList<T>(newData);
+        BACKGROUND.execute(new Runnable() {
+            @Override
+            public void run() {
+                if (submitted != generation) return;
+                final ListDiff diff = ListDiff.compute(oldList, newList, comparator);
+                MAIN.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (submitted == generation) callback.onDiffComputed(newList, diff);
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * Drop the result of the pending updates. Must be called on the UI thread.
+     */
+    void cancel() {
+        generation++;
+    }
+
+    interface Callback<T> {
+
+        void onDiffComputed(List<T> newData, ListDiff diff);
+    }
+}
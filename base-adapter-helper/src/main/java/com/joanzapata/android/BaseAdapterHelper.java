@@ -26,10 +26,10 @@ import android.util.SparseArray;
 import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
+import android.view.ViewParent;
 import android.view.animation.AlphaAnimation;
 import android.widget.*;
 
-import com.squareup.picasso.Picasso;
 import com.squareup.picasso.RequestCreator;
 
 /**
@@ -55,34 +55,117 @@ public class BaseAdapterHelper {
 
     private final Context context;
 
+    private final int layoutId;
+
+    /**
+     * Type of the parent the view was inflated for, which determines its layout params
+     */
+    private final Class<? extends ViewGroup> parentType;
+
     private int position;
 
     private int childPosition;
 
     private View convertView;
 
+    /**
+     * Generated binder of the layout, if any, and the views it resolved
+     */
+    private ViewBinder<Object> binder;
+
+    private Object binding;
+
+    /**
+     * Last values applied to the views, only kept in skip-unchanged mode
+     */
+    private ViewStateShadow shadow;
+
+    /**
+     * Shared click listener attached to the views, and the version of the set of views it was attached to
+     */
+    private View.OnClickListener clickDispatcher;
+
+    private int clickDispatcherVersion;
+
+    /**
+     * Ids of the views the click dispatcher is attached to, and whether they were clickable before
+     */
+    private int[] clickDispatcherViewIds;
+
+    private boolean[] clickableBeforeDispatcher;
+
+    /**
+     * Whether the click dispatcher is still the listener of each view, not replaced by setOnClickListener()
+     */
+    private boolean[] dispatching;
+
+    /**
+     * Image loader of the helpers without their own, a PicassoImageLoader unless set
+     */
+    private static ImageLoader defaultImageLoader;
+
+    private ImageLoader imageLoader;
+
+    /**
+     * Images requested by setImageUrl(), indexed by view id
+     */
+    private SparseArray<ImageRequest> imageRequests;
+
+    /**
+     * Number of binds started by an adapter, and whether the current one is for another object
+     */
+    private int bindCount;
+
+    private boolean rebinding;
+
+    /**
+     * Row bound by a ColumnarQuickAdapter, which binds positions instead of objects, or -1
+     */
+    private int boundRow = -1;
+
     /**
      * Package private field to retain the associated user object and detect a change
      */
     Object associatedObject;
 
     protected BaseAdapterHelper(Context context, ViewGroup parent, int layoutId, int position) {
+        this(context, LayoutInflater.from(context), parent, layoutId, position);
+    }
+
+    BaseAdapterHelper(Context context, LayoutInflater inflater, ViewGroup parent, int layoutId, int position) {
         this.context = context;
+        this.layoutId = layoutId;
+        this.parentType = parent == null ? null : parent.getClass();
         this.position = position;
         this.views = new SparseArray<View>();
-        convertView = LayoutInflater.from(context) //
-                .inflate(layoutId, parent, false);
+        convertView = inflater.inflate(layoutId, parent, false);
         convertView.setTag(this);
+        bindViews(layoutId);
     }
 
     protected BaseAdapterHelper(Context context, ViewGroup parent, int layoutId, int groupPosition, int childPosition) {
         this.context = context;
+        this.layoutId = layoutId;
+        this.parentType = parent == null ? null : parent.getClass();
         this.position = groupPosition;
         this.childPosition = childPosition;
         this.views = new SparseArray<View>();
         convertView = LayoutInflater.from(context) //
                 .inflate(layoutId, parent, false);
         convertView.setTag(this);
+        bindViews(layoutId);
+    }
+
+    /**
+     * Enable or disable the learning of the views retrieved for each layout.<br/>
+     * When enabled, the views retrieved while converting the first items of a layout
+     * are recorded, and all of them are resolved in a single walk of the view
+     * hierarchy each time this layout is inflated again.
+     *
+     * @param enabled True to enable view prefetching, false to disable it and forget what was learned.
+     */
+    public static void setViewPrefetchEnabled(boolean enabled) {
+        ViewPrefetcher.setEnabled(enabled);
     }
 
     /**
@@ -102,7 +185,9 @@ public class BaseAdapterHelper {
      */
     static BaseAdapterHelper get(Context context, View convertView, ViewGroup parent, int layoutId, int position) {
         if (convertView == null) {
-            return new BaseAdapterHelper(context, parent, layoutId, position);
+            BaseAdapterHelper pooledHelper = SharedViewPool.getInstance().acquire(context, parent, layoutId);
+            if (pooledHelper == null) return new BaseAdapterHelper(context, parent, layoutId, position);
+            convertView = pooledHelper.getView();
         }
 
         // Retrieve the existing helper and update its position
@@ -116,7 +201,10 @@ public class BaseAdapterHelper {
      */
     public static BaseAdapterHelper get(Context context, View convertView, ViewGroup parent, int layoutId, int groupPosition, int childPosition) {
         if (convertView == null) {
-            return new BaseAdapterHelper(context, parent, layoutId, groupPosition, childPosition);
+            BaseAdapterHelper pooledHelper = SharedViewPool.getInstance().acquire(context, parent, layoutId);
+            if (pooledHelper == null)
+                return new BaseAdapterHelper(context, parent, layoutId, groupPosition, childPosition);
+            convertView = pooledHelper.getView();
         }
 
         // Retrieve the existing helper and update its position
@@ -140,15 +228,64 @@ public class BaseAdapterHelper {
     }
 
     /**
-     * Will set the text of a TextView.
+     * Enable or disable the skip-unchanged mode.<br/>
+     * In this mode, setters leave the view untouched when the value is the one
+     * they applied last, avoiding useless layout passes when rebinding a row
+     * whose content didn't change. Values applied directly on the views
+     * (see {@link #getView(int)}) are not tracked, and must not be mixed with
+     * the setters of this helper for the same properties.
+     *
+     * @param skipUnchanged True to skip unchanged values.
+     * @return The BaseAdapterHelper for chaining.
+     */
+    public BaseAdapterHelper setSkipUnchanged(boolean skipUnchanged) {
+        if (!skipUnchanged) {
+            shadow = null;
+        } else if (shadow == null) {
+            shadow = new ViewStateShadow();
+        }
+        return this;
+    }
+
+    /**
+     * @return True if the skip-unchanged mode is enabled.
+     */
+    public boolean isSkipUnchanged() {
+        return shadow != null;
+    }
+
+    /**
+     * Will set the text of a TextView, or of a {@link MeasuredTextView}, which then uses
+     * the layout measured ahead of time if any.
      *
      * @param viewId The view id.
      * @param value  The text to put in the text view.
      * @return The BaseAdapterHelper for chaining.
      */
     public BaseAdapterHelper setText(int viewId, String value) {
+        View view = retrieveView(viewId);
+        // Editable content can change behind our back
+        if (shadow != null && !(view instanceof EditText)
+                && !shadow.update(viewId, ViewStateShadow.TEXT, value)) return this;
+        if (view instanceof MeasuredTextView) ((MeasuredTextView) view).setText(value);
+        else ((TextView) view).setText(value);
+        return this;
+    }
+
+    /**
+     * Will set the text of a TextView from a range of characters, which are copied,
+     * so that the same buffer can be reused.
+     *
+     * @param viewId The view id.
+     * @param text   The buffer holding the text.
+     * @param start  The position of the text in the buffer.
+     * @param len    The length of the text.
+     * @return The BaseAdapterHelper for chaining.
+     */
+    public BaseAdapterHelper setText(int viewId, char[] text, int start, int len) {
         TextView view = retrieveView(viewId);
-        view.setText(value);
+        if (shadow != null) shadow.forget(viewId, ViewStateShadow.TEXT);
+        view.setText(text, start, len);
         return this;
     }
 
@@ -161,6 +298,7 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setImageResource(int viewId, int imageResId) {
         ImageView view = retrieveView(viewId);
+        cancelImageRequest(viewId, view);
         view.setImageResource(imageResId);
         return this;
     }
@@ -199,6 +337,7 @@ public class BaseAdapterHelper {
      * @return The BaseAdapterHelper for chaining.
      */
     public BaseAdapterHelper setTextColor(int viewId, int textColor) {
+        if (shadow != null && !shadow.update(viewId, ViewStateShadow.TEXT_COLOR, textColor)) return this;
         TextView view = retrieveView(viewId);
         view.setTextColor(textColor);
         return this;
@@ -212,9 +351,7 @@ public class BaseAdapterHelper {
      * @return The BaseAdapterHelper for chaining.
      */
     public BaseAdapterHelper setTextColorRes(int viewId, int textColorRes) {
-        TextView view = retrieveView(viewId);
-        view.setTextColor(context.getResources().getColor(textColorRes));
-        return this;
+        return setTextColor(viewId, context.getResources().getColor(textColorRes));
     }
 
     /**
@@ -226,14 +363,18 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setImageDrawable(int viewId, Drawable drawable) {
         ImageView view = retrieveView(viewId);
+        cancelImageRequest(viewId, view);
         view.setImageDrawable(drawable);
         return this;
     }
 
     /**
      * Will download an image from a URL and put it in an ImageView.<br/>
-     * It uses Square's Picasso library to download the image asynchronously and put the result into the ImageView.<br/>
-     * Picasso manages recycling of views in a ListView.<br/>
+     * It uses the {@link ImageLoader} of this helper, by default Square's Picasso library,
+     * to download the image asynchronously, scaled down to the size of the ImageView.<br/>
+     * Nothing is done if the view already displays, or is loading, the image at this URL.
+     * If the helper is bound to another object by an adapter and the URL is not set again,
+     * the pending request is cancelled.<br/>
      * If you need more control over the Picasso settings, use {BaseAdapterHelper#setImageBuilder}.
      *
      * @param viewId   The view id.
@@ -242,10 +383,41 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setImageUrl(int viewId, String imageUrl) {
         ImageView view = retrieveView(viewId);
-        Picasso.with(context).load(imageUrl).into(view);
+        if (imageRequests == null) imageRequests = new SparseArray<ImageRequest>();
+        ImageRequest request = imageRequests.get(viewId);
+        if (request == null) {
+            request = new ImageRequest();
+            imageRequests.put(viewId, request);
+        } else if (imageUrl != null && imageUrl.equals(request.url)) {
+            request.bind = bindCount;
+            return this;
+        }
+        request.url = imageUrl;
+        request.bind = bindCount;
+
+        getImageLoader().load(view, imageUrl, targetWidth(view), targetHeight(view));
         return this;
     }
 
+    /**
+     * The width to decode images at for a view: its width once laid out, before
+     * that the width of its layout params if exact, else 0.
+     */
+    static int targetWidth(ImageView view) {
+        if (view.getWidth() > 0 && view.getHeight() > 0) return view.getWidth();
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        return params == null ? 0 : Math.max(params.width, 0);
+    }
+
+    /**
+     * The height to decode images at for a view, see {@link #targetWidth(ImageView)}.
+     */
+    static int targetHeight(ImageView view) {
+        if (view.getWidth() > 0 && view.getHeight() > 0) return view.getHeight();
+        ViewGroup.LayoutParams params = view.getLayoutParams();
+        return params == null ? 0 : Math.max(params.height, 0);
+    }
+
     /**
      * Will download an image from a URL and put it in an ImageView.<br/>
      *
@@ -255,6 +427,7 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setImageBuilder(int viewId, RequestCreator requestBuilder) {
         ImageView view = retrieveView(viewId);
+        cancelImageRequest(viewId, view);
         requestBuilder.into(view);
         return this;
     }
@@ -264,6 +437,7 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setImageBitmap(int viewId, Bitmap bitmap) {
         ImageView view = retrieveView(viewId);
+        cancelImageRequest(viewId, view);
         view.setImageBitmap(bitmap);
         return this;
     }
@@ -274,8 +448,12 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setAlpha(int viewId, float value) {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB) {
-            retrieveView(viewId).setAlpha(value);
+            View view = retrieveView(viewId);
+            if (shadow != null && view.getAlpha() == value) return this;
+            view.setAlpha(value);
         } else {
+            if (shadow != null && !shadow.update(viewId, ViewStateShadow.ALPHA, Float.floatToIntBits(value)))
+                return this;
             // Pre-honeycomb hack to set Alpha value
             AlphaAnimation alpha = new AlphaAnimation(value, value);
             alpha.setDuration(0);
@@ -293,9 +471,7 @@ public class BaseAdapterHelper {
      * @return The BaseAdapterHelper for chaining.
      */
     public BaseAdapterHelper setVisible(int viewId, boolean visible) {
-        View view = retrieveView(viewId);
-        view.setVisibility(visible ? View.VISIBLE : View.GONE);
-        return this;
+        return setVisible(viewId, visible ? View.VISIBLE : View.GONE);
     }
 
     /**
@@ -307,19 +483,35 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setVisible(int viewId, int visible) {
         View view = retrieveView(viewId);
+        if (shadow != null && view.getVisibility() == visible) return this;
         view.setVisibility(visible);
         return this;
     }
 
     /**
-     * Add links into a TextView.
+     * Add links into a TextView.<br/>
+     * The links found in a text are kept in the {@link LinkifyCache}, and reused
+     * the next time a row is bound to the same text.
      *
      * @param viewId The id of the TextView to linkify.
      * @return The BaseAdapterHelper for chaining.
      */
     public BaseAdapterHelper linkify(int viewId) {
+        return linkify(viewId, Linkify.ALL);
+    }
+
+    /**
+     * Add links of the given types into a TextView.
+     *
+     * @param viewId The id of the TextView to linkify.
+     * @param mask   The Linkify mask, e.g. Linkify.WEB_URLS | Linkify.EMAIL_ADDRESSES.
+     * @return The BaseAdapterHelper for chaining.
+     */
+    public BaseAdapterHelper linkify(int viewId, int mask) {
         TextView view = retrieveView(viewId);
-        Linkify.addLinks(view, Linkify.ALL);
+        LinkifyCache.getInstance().linkify(view, mask);
+        // The text now differs from the one given to setText()
+        if (shadow != null) shadow.forget(viewId, ViewStateShadow.TEXT);
         return this;
     }
 
@@ -354,6 +546,7 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setProgress(int viewId, int progress) {
         ProgressBar view = retrieveView(viewId);
+        if (shadow != null && view.getProgress() == progress) return this;
         view.setProgress(progress);
         return this;
     }
@@ -368,6 +561,7 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setProgress(int viewId, int progress, int max) {
         ProgressBar view = retrieveView(viewId);
+        if (shadow != null && view.getMax() == max && view.getProgress() == progress) return this;
         view.setMax(max);
         view.setProgress(progress);
         return this;
@@ -382,6 +576,7 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setMax(int viewId, int max) {
         ProgressBar view = retrieveView(viewId);
+        if (shadow != null && view.getMax() == max) return this;
         view.setMax(max);
         return this;
     }
@@ -395,6 +590,7 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setRating(int viewId, float rating) {
         RatingBar view = retrieveView(viewId);
+        if (shadow != null && view.getRating() == rating) return this;
         view.setRating(rating);
         return this;
     }
@@ -409,6 +605,7 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setRating(int viewId, float rating, int max) {
         RatingBar view = retrieveView(viewId);
+        if (shadow != null && view.getMax() == max && view.getRating() == rating) return this;
         view.setMax(max);
         view.setRating(rating);
         return this;
@@ -424,6 +621,11 @@ public class BaseAdapterHelper {
     public BaseAdapterHelper setOnClickListener(int viewId, View.OnClickListener listener) {
         View view = retrieveView(viewId);
         view.setOnClickListener(listener);
+        if (clickDispatcher != null) {
+            for (int i = 0; i < clickDispatcherViewIds.length; i++) {
+                if (clickDispatcherViewIds[i] == viewId) dispatching[i] = listener == clickDispatcher;
+            }
+        }
         return this;
     }
 
@@ -528,6 +730,7 @@ public class BaseAdapterHelper {
      */
     public BaseAdapterHelper setChecked(int viewId, boolean checked) {
         Checkable view = (Checkable) retrieveView(viewId);
+        if (shadow != null && view.isChecked() == checked) return this;
         view.setChecked(checked);
         return this;
     }
@@ -540,7 +743,9 @@ public class BaseAdapterHelper {
      * @return The BaseAdapterHelper for chaining.
      */
     public BaseAdapterHelper setSelected(int viewId, boolean selected) {
-        retrieveView(viewId).setSelected(selected);
+        View view = retrieveView(viewId);
+        if (shadow != null && view.isSelected() == selected) return this;
+        view.setSelected(selected);
         return this;
     }
 
@@ -557,6 +762,32 @@ public class BaseAdapterHelper {
         return this;
     }
 
+    /**
+     * Set the image loader used by all the helpers which don't have their own.
+     *
+     * @param imageLoader The image loader, by default a {@link PicassoImageLoader}.
+     */
+    public static void setDefaultImageLoader(ImageLoader imageLoader) {
+        defaultImageLoader = imageLoader;
+    }
+
+    /**
+     * Set the image loader used by setImageUrl().
+     *
+     * @param imageLoader The image loader, or null to use the default one.
+     * @return The BaseAdapterHelper for chaining.
+     */
+    public BaseAdapterHelper setImageLoader(ImageLoader imageLoader) {
+        this.imageLoader = imageLoader;
+        return this;
+    }
+
+    public ImageLoader getImageLoader() {
+        if (imageLoader != null) return imageLoader;
+        if (defaultImageLoader == null) defaultImageLoader = new PicassoImageLoader(context);
+        return defaultImageLoader;
+    }
+
     /**
      * Retrieve the convertView
      */
@@ -576,6 +807,17 @@ public class BaseAdapterHelper {
         return position;
     }
 
+    /**
+     * @return False if the helper has no position, e.g. created outside of an adapter or released.
+     */
+    boolean hasPosition() {
+        return position != -1;
+    }
+
+    void setPosition(int position) {
+        this.position = position;
+    }
+
     /**
      * Retrieve the overall position of the data in the list.
      *
@@ -589,12 +831,188 @@ public class BaseAdapterHelper {
         return childPosition;
     }
 
+    /**
+     * Retrieve the views of this item as resolved by the ViewBinder generated
+     * for its layout (see {@link BindLayout}).
+     *
+     * @return The binding, or null if no binder exists for the layout.
+     */
+    @SuppressWarnings("unchecked")
+    public <B> B getBinding() {
+        return (B) binding;
+    }
+
+    /**
+     * Give the view of this helper back to the {@link SharedViewPool}, once it is
+     * detached from its parent and won't be used anymore.
+     *
+     * @return True if the pool retained it.
+     */
+    public boolean release() {
+        return SharedViewPool.getInstance().release(this);
+    }
+
+    /**
+     * Attach a click listener shared by all the rows of an adapter to the views with the given ids.
+     * This is done once per helper, or when the ids change, so that rebinding allocates nothing.
+     *
+     * @param dispatcher The shared listener, which resolves the row from the clicked view.
+     * @param viewIds    The view ids, as keys.
+     * @param version    The version of viewIds, to attach the listener again when they change.
+     */
+    void attachClickDispatcher(View.OnClickListener dispatcher, SparseArray<?> viewIds, int version) {
+        if (clickDispatcher == dispatcher && clickDispatcherVersion == version) return;
+        // Views no longer listened to must stop swallowing the clicks of the row
+        detachClickDispatcher();
+        int size = viewIds.size();
+        clickDispatcherViewIds = new int[size];
+        clickableBeforeDispatcher = new boolean[size];
+        dispatching = new boolean[size];
+        for (int i = 0; i < size; i++) {
+            clickDispatcherViewIds[i] = viewIds.keyAt(i);
+            View view = retrieveView(clickDispatcherViewIds[i]);
+            if (view == null) continue;
+            clickableBeforeDispatcher[i] = view.isClickable();
+            view.setOnClickListener(dispatcher);
+            dispatching[i] = true;
+        }
+        clickDispatcher = dispatcher;
+        clickDispatcherVersion = version;
+    }
+
+    /**
+     * Remove the click dispatcher from the views, and make them as clickable as they were before.
+     * The listeners set since with {@link #setOnClickListener(int, View.OnClickListener)} are kept.
+     */
+    void detachClickDispatcher() {
+        if (clickDispatcher == null) return;
+        for (int i = 0; i < clickDispatcherViewIds.length; i++) {
+            if (!dispatching[i]) continue;
+            View view = retrieveView(clickDispatcherViewIds[i]);
+            view.setOnClickListener(null);
+            view.setClickable(clickableBeforeDispatcher[i]);
+        }
+        clickDispatcher = null;
+        clickDispatcherViewIds = null;
+        clickableBeforeDispatcher = null;
+        dispatching = null;
+    }
+
+    /**
+     * Forget the state left by the adapter which used this helper, before it goes in the SharedViewPool.
+     */
+    void resetForPool() {
+        associatedObject = null;
+        boundRow = -1;
+        cancelImageRequests();
+        detachClickDispatcher();
+        convertView.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Find the helper of the row containing the given view.
+     *
+     * @return The helper, or null if the view isn't part of a row created by a BaseAdapterHelper.
+     */
+    static BaseAdapterHelper from(View view) {
+        while (true) {
+            Object tag = view.getTag();
+            if (tag instanceof BaseAdapterHelper) return (BaseAdapterHelper) tag;
+            ViewParent parent = view.getParent();
+            if (!(parent instanceof View)) return null;
+            view = (View) parent;
+        }
+    }
+
+    /**
+     * Called by the adapters before converting an item, see {@link #onBindFinished()}.
+     */
+    void onBindStarted(Object item) {
+        bindCount++;
+        rebinding = boundRow != -1
+                || associatedObject != item && (associatedObject == null || !associatedObject.equals(item));
+        boundRow = -1;
+    }
+
+    /**
+     * Same as {@link #onBindStarted(Object)} for a row identified by its position, without boxing it.
+     */
+    void onRowBindStarted(int row) {
+        bindCount++;
+        rebinding = boundRow != row || associatedObject != null;
+        boundRow = row;
+        associatedObject = null;
+    }
+
+    /**
+     * Called by the adapters after converting an item. If it isn't the item previously bound,
+     * cancel the image requests that were not made again for it.
+     */
+    void onBindFinished() {
+        if (!rebinding || imageRequests == null) return;
+        for (int i = imageRequests.size() - 1; i >= 0; i--) {
+            if (imageRequests.valueAt(i).bind != bindCount) {
+                ImageView view = retrieveView(imageRequests.keyAt(i));
+                imageRequests.removeAt(i);
+                getImageLoader().cancel(view);
+            }
+        }
+    }
+
+    /**
+     * Cancel all the image requests of this helper, e.g. when its view is pooled.
+     */
+    void cancelImageRequests() {
+        if (imageRequests == null) return;
+        for (int i = imageRequests.size() - 1; i >= 0; i--) {
+            ImageView view = retrieveView(imageRequests.keyAt(i));
+            getImageLoader().cancel(view);
+        }
+        imageRequests.clear();
+    }
+
+    private void cancelImageRequest(int viewId, ImageView view) {
+        if (imageRequests == null || imageRequests.get(viewId) == null) return;
+        imageRequests.remove(viewId);
+        getImageLoader().cancel(view);
+    }
+
+    int getLayoutId() {
+        return layoutId;
+    }
+
+    Context getContext() {
+        return context;
+    }
+
+    /**
+     * Whether the view of this helper can be reused for the same layout in the given parent.
+     */
+    boolean isReusableIn(Context context, ViewGroup parent) {
+        return this.context == context && (parent == null || parent.getClass() == parentType);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void bindViews(int layoutId) {
+        binder = (ViewBinder<Object>) ViewBinders.get(layoutId);
+        if (binder != null) {
+            binding = binder.bind(convertView);
+        } else {
+            ViewPrefetcher.prefetch(layoutId, convertView, views);
+        }
+    }
+
     @SuppressWarnings("unchecked")
     protected <T extends View> T retrieveView(int viewId) {
+        if (binder != null) {
+            View view = binder.findView(binding, viewId);
+            if (view != null) return (T) view;
+        }
         View view = views.get(viewId);
         if (view == null) {
             view = convertView.findViewById(viewId);
             views.put(viewId, view);
+            ViewPrefetcher.learn(layoutId, viewId);
         }
         return (T) view;
     }
@@ -612,4 +1030,17 @@ public class BaseAdapterHelper {
     public void setAssociatedObject(Object associatedObject) {
         this.associatedObject = associatedObject;
     }
+
+    /**
+     * Last image requested for a view
+     */
+    private static final class ImageRequest {
+
+        String url;
+
+        /**
+         * Value of bindCount when the image was last requested
+         */
+        int bind;
+    }
 }
@@ -190,16 +190,20 @@ public abstract class BaseExpandAdapter<T, H extends BaseAdapterHelper, K> exten
     public View createConvertView(int position, View convertView, ViewGroup parent, boolean isExpanded) {
         final H helper = getAdapterHelper(position, convertView, parent);
         T item = getGroup(position);
+        helper.onBindStarted(item);
         helper.setAssociatedObject(item);
         convertGroup(helper, item, isExpanded);
+        helper.onBindFinished();
         return helper.getView();
     }
 
     public View createConvertView(int groupPosition, int childPosition, View convertView, ViewGroup parent) {
         final H helper = getAdapterHelper(groupPosition, childPosition, convertView, parent);
         K item = getChild(groupPosition, childPosition);
+        helper.onBindStarted(item);
         helper.setAssociatedObject(item);
         convertChild(helper, item);
+        helper.onBindFinished();
         return helper.getView();
     }
 
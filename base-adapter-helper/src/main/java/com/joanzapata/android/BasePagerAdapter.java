@@ -41,6 +41,19 @@ public abstract class BasePagerAdapter<T, H extends BaseAdapterHelper> extends P
 
     protected SparseArray<View> mViews;
 
+    private ItemComparator<T> itemComparator;
+
+    private KeyIndex<T> keyIndex;
+
+    private final AsyncDiffer<T> asyncDiffer = new AsyncDiffer<T>();
+
+    private int dataVersion;
+
+    /**
+     * The diff being applied by notifyDataSetChanged(), to keep the pages of the items still displayed
+     */
+    private ListDiff appliedDiff;
+
     /**
      * Create a QuickAdapter.
      *
@@ -94,11 +107,37 @@ public abstract class BasePagerAdapter<T, H extends BaseAdapterHelper> extends P
 
     @Override
     public void destroyItem(ViewGroup container, int position, Object object) {
-        container.removeView(mViews.get(position));
+        View view = (View) object;
+        container.removeView(view);
+        SharedViewPool.getInstance().release(view);
     }
 
     public int getItemPosition(Object object) {
-        return POSITION_NONE;
+        if (appliedDiff == null || !(((View) object).getTag() instanceof BaseAdapterHelper)) return POSITION_NONE;
+        BaseAdapterHelper helper = (BaseAdapterHelper) ((View) object).getTag();
+        // Created outside of the adapter, or already released
+        if (!helper.hasPosition()) return POSITION_NONE;
+        int oldPosition = helper.getPosition();
+        int newPosition = oldPosition < appliedDiff.oldSize ? appliedDiff.oldToNew[oldPosition] : -1;
+        if (newPosition == -1 || !isSameContent(helper.getAssociatedObject(), data.get(newPosition))) {
+            return POSITION_NONE;
+        }
+        helper.setPosition(newPosition);
+        helper.setAssociatedObject(data.get(newPosition));
+        return newPosition == oldPosition ? POSITION_UNCHANGED : newPosition;
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean isSameContent(Object boundItem, T item) {
+        if (boundItem == null || item == null) return false;
+        T oldItem = (T) boundItem;
+        return itemComparator.areItemsTheSame(oldItem, item) && itemComparator.areContentsTheSame(oldItem, item);
+    }
+
+    @Override
+    public void notifyDataSetChanged() {
+        dataVersion++;
+        super.notifyDataSetChanged();
     }
 
     /**
@@ -129,8 +168,10 @@ public abstract class BasePagerAdapter<T, H extends BaseAdapterHelper> extends P
     public View createConvertView(int position, View convertView, ViewGroup parent) {
         final H helper = getAdapterHelper(position, convertView, parent);
         T item = getItem(position);
+        helper.onBindStarted(item);
         helper.setAssociatedObject(item);
         convert(helper, item);
+        helper.onBindFinished();
         return helper.getView();
     }
 
@@ -145,6 +186,7 @@ public abstract class BasePagerAdapter<T, H extends BaseAdapterHelper> extends P
     public void add(T elem) {
         if (elem != null) {
             data.add(elem);
+            if (keyIndex != null) keyIndex.onAdded(data, data.size() - 1, elem);
             notifyDataSetChanged();
         }
     }
@@ -152,13 +194,18 @@ public abstract class BasePagerAdapter<T, H extends BaseAdapterHelper> extends P
     public void add(int index, T elem) {
         if (elem != null) {
             data.add(index, elem);
+            if (keyIndex != null) keyIndex.onAdded(data, index, elem);
             notifyDataSetChanged();
         }
     }
 
     public void addAll(List<T> elem) {
         if (elem != null) {
+            int start = data.size();
             data.addAll(elem);
+            if (keyIndex != null) {
+                for (int i = 0, size = elem.size(); i < size; i++) keyIndex.onAdded(data, start + i, elem.get(i));
+            }
             notifyDataSetChanged();
         }
     }
@@ -166,43 +213,132 @@ public abstract class BasePagerAdapter<T, H extends BaseAdapterHelper> extends P
     public void addAll(int index, List<T> elem) {
         if (elem != null) {
             data.addAll(index, elem);
+            if (keyIndex != null) keyIndex.invalidate();
             notifyDataSetChanged();
         }
     }
 
     public void set(T oldElem, T newElem) {
-        set(data.indexOf(oldElem), newElem);
+        set(indexOf(oldElem), newElem);
     }
 
     public void set(int index, T elem) {
         if (elem != null) {
-            data.set(index, elem);
+            T oldElem = data.set(index, elem);
+            if (keyIndex != null) keyIndex.onSet(data, index, oldElem, elem);
             notifyDataSetChanged();
         }
     }
 
     public void remove(T elem) {
         if (elem != null) {
-            data.remove(elem);
-            notifyDataSetChanged();
+            int index = indexOf(elem);
+            if (index != -1) remove(index);
         }
     }
 
     public void remove(int index) {
-        data.remove(index);
+        T elem = data.remove(index);
+        if (keyIndex != null) keyIndex.onRemoved(data, index, elem);
         notifyDataSetChanged();
     }
 
+    /**
+     * Replace the items of the adapter.<br/>
+     * If an ItemComparator was set, the pages of the items whose content didn't change are kept.
+     */
     public void replaceAll(List<T> elem) {
+        asyncDiffer.cancel();
+        if (itemComparator != null) {
+            List<T> newData = elem == null ? new ArrayList<T>() : elem;
+            applyDiff(newData, ListDiff.compute(data, newData, itemComparator));
+            return;
+        }
         data.clear();
         if (elem != null) {
             data.addAll(elem);
         }
+        if (keyIndex != null) keyIndex.invalidate();
         notifyDataSetChanged();
     }
 
+    /**
+     * Same as {@link #replaceAll(List)}, but the items are diffed on a background thread.
+     * The ItemComparator must then be thread safe.<br/>
+     * If replaceAllAsync() or replaceAll() is called again before the diff completes,
+     * this update is dropped.
+     * @param elem      The new items, copied before this method returns.
+     * @param onApplied Called on the UI thread once the items are displayed, may be null.
+     */
+    public void replaceAllAsync(List<T> elem, final Runnable onApplied) {
+        if (itemComparator == null) {
+            replaceAll(elem);
+            if (onApplied != null) onApplied.run();
+            return;
+        }
+        final int version = dataVersion;
+        asyncDiffer.submit(data, elem, itemComparator, new AsyncDiffer.Callback<T>() {
+            @Override
+            public void onDiffComputed(List<T> newData, ListDiff diff) {
+                if (version == dataVersion) {
+                    applyDiff(newData, diff);
+                } else {
+                    // The items were modified meanwhile, the diff doesn't apply
+                    data.clear();
+                    data.addAll(newData);
+                    if (keyIndex != null) keyIndex.invalidate();
+                    notifyDataSetChanged();
+                }
+                if (onApplied != null) onApplied.run();
+            }
+        });
+    }
+
+    private void applyDiff(List<T> newData, ListDiff diff) {
+        data.clear();
+        data.addAll(newData);
+        if (keyIndex != null) keyIndex.invalidate();
+        appliedDiff = diff;
+        try {
+            notifyDataSetChanged();
+        } finally {
+            appliedDiff = null;
+        }
+    }
+
+    /**
+     * Make replaceAll() compute the difference between the current and the new items,
+     * so that the ViewPager keeps the pages of the items whose content didn't change.
+     * @param itemComparator Tells which items are the same and whether their content changed,
+     *                       or null to recreate every page on replaceAll().
+     */
+    public void setItemComparator(ItemComparator<T> itemComparator) {
+        this.itemComparator = itemComparator;
+    }
+
     public boolean contains(T elem) {
-        return data.contains(elem);
+        return indexOf(elem) != -1;
+    }
+
+    /**
+     * @return The position of the item, or of the item with the same key if a key index
+     * is enabled, or -1. See {@link #setKeyIndex(boolean, KeyExtractor)}.
+     */
+    public int indexOf(T elem) {
+        return keyIndex == null ? data.indexOf(elem) : keyIndex.indexOf(data, elem);
+    }
+
+    /**
+     * Maintain a hash index of the positions of the items, so that contains(), indexOf(),
+     * set(oldElem, newElem) and remove(elem) don't scan the list. Adding, replacing and
+     * removing single items keep the index up to date in constant time, the index being rebuilt
+     * in O(n) every 64 insertions or removals in the middle of the list, and after other changes.
+     * Changes made directly to {@link #data} or {@link #getData()} must be followed by replaceAll().
+     * @param enabled      True to maintain the index.
+     * @param keyExtractor Returns the key items are compared with, or null to compare the items themselves.
+     */
+    public void setKeyIndex(boolean enabled, KeyExtractor<T> keyExtractor) {
+        keyIndex = enabled ? new KeyIndex<T>(keyExtractor) : null;
     }
 
     /**
@@ -210,13 +346,16 @@ public abstract class BasePagerAdapter<T, H extends BaseAdapterHelper> extends P
      */
     public void clear() {
         data.clear();
+        if (keyIndex != null) keyIndex.invalidate();
     }
 
     /**
      * Clear data list
      */
     public void clearNotify() {
+        asyncDiffer.cancel();
         data.clear();
+        if (keyIndex != null) keyIndex.invalidate();
         notifyDataSetChanged();
     }
 
@@ -16,15 +16,35 @@
 package com.joanzapata.android;
 
 import android.content.Context;
+import android.util.Log;
+import android.util.SparseArray;
 import android.view.Gravity;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.BaseAdapter;
+import android.widget.Filter;
+import android.widget.Filterable;
 import android.widget.FrameLayout;
+import android.widget.ImageView;
+import android.widget.ListAdapter;
+import android.widget.ListView;
 import android.widget.ProgressBar;
+import android.widget.TextView;
+import android.widget.WrapperListAdapter;
 
+import java.lang.ref.WeakReference;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Abstraction class of a BaseAdapter in which you only need
@@ -32,10 +52,33 @@ import java.util.List;
  * Using the provided BaseAdapterHelper, your code is minimalist.
  * @param <T> The type of the items in the list.
  */
-public abstract class BaseQuickAdapter<T, H extends BaseAdapterHelper> extends BaseAdapter {
+public abstract class BaseQuickAdapter<T, H extends BaseAdapterHelper> extends BaseAdapter implements Filterable {
 
     protected static final String TAG = BaseQuickAdapter.class.getSimpleName();
 
+    /**
+     * Id of the indeterminate progress row when the ids are stable
+     */
+    public static final long PROGRESS_ITEM_ID = Long.MIN_VALUE;
+
+    /**
+     * Ids from PROGRESS_ITEM_ID to this one are reserved for the progress row and the placeholders
+     * of a PagedDataSource, which get PROGRESS_ITEM_ID + 1 + their position. The ItemIdProvider
+     * must not return them.
+     */
+    public static final long MAX_RESERVED_ITEM_ID = PROGRESS_ITEM_ID + 1 + Integer.MAX_VALUE;
+
+    /**
+     * States of the load more, see {@link #setOnLoadMoreListener(OnLoadMoreListener, int)}
+     */
+    public static final int LOAD_MORE_IDLE = 0;
+
+    public static final int LOAD_MORE_LOADING = 1;
+
+    public static final int LOAD_MORE_ERROR = 2;
+
+    public static final int LOAD_MORE_EXHAUSTED = 3;
+
     protected final Context context;
 
     protected final int layoutResId;
@@ -44,6 +87,228 @@ public abstract class BaseQuickAdapter<T, H extends BaseAdapterHelper> extends B
 
     protected boolean displayIndeterminateProgress = false;
 
+    protected boolean skipUnchanged = false;
+
+    private OnLoadMoreListener<T> loadMoreListener;
+
+    private final LoadMoreState loadMore = new LoadMoreState();
+
+    private CharSequence loadMoreErrorText = "Tap to retry";
+
+    private CharSequence loadMoreEndText;
+
+    private final Runnable loadMoreStarter = new Runnable() {
+        @Override
+        public void run() {
+            if (!loadMore.isLoading()) return;
+            notifyDataSetChanged();
+            loadMoreListener.onLoadMore(data.isEmpty() ? null : data.get(data.size() - 1));
+        }
+    };
+
+    private final View.OnClickListener retryClickListener = new View.OnClickListener() {
+        @Override
+        public void onClick(View view) {
+            retryLoadMore();
+        }
+    };
+
+    /**
+     * Click listeners of the item views, indexed by view id
+     */
+    private SparseArray<OnItemChildClickListener<T>> childClickListeners;
+
+    private int childClickListenersVersion;
+
+    /**
+     * Texts to measure ahead of the viewport, indexed by TextView id, and the styles of those views
+     */
+    private SparseArray<TextExtractor<T>> textExtractors;
+
+    private SparseArray<TextMeasureCache.Style> textStyles;
+
+    private int textPrefetchDistance;
+
+    private final PrefetchWindow textPrefetchWindow = new PrefetchWindow();
+
+    /**
+     * Images to load ahead of the viewport, indexed by ImageView id,
+     * and the URLs being prefetched, indexed by position
+     */
+    private SparseArray<ImageUrlExtractor<T>> imageUrlExtractors;
+
+    private SparseArray<String[]> imagePrefetches;
+
+    private int imagePrefetchDistance;
+
+    private final PrefetchWindow imagePrefetchWindow = new PrefetchWindow();
+
+    private static final int VIEW_MODEL_CACHE_SIZE = 200;
+
+    /**
+     * Prepares the view-models of the upcoming items on a background thread, and applies them
+     */
+    private ViewModelBinder<T, Object, H> viewModelBinder;
+
+    private final ViewModelCache viewModels = new ViewModelCache(VIEW_MODEL_CACHE_SIZE);
+
+    /**
+     * Keys of the items whose view-model is being prepared, mapped to their preparation,
+     * so that a preparation which was invalidated meanwhile is dropped
+     */
+    private final HashMap<Object, PendingViewModel<T>> pendingViewModels = new HashMap<Object, PendingViewModel<T>>();
+
+    /**
+     * Incremented when the view-models are invalidated, so that those being prepared are dropped
+     */
+    private int viewModelGeneration;
+
+    private int viewModelPrefetchDistance;
+
+    private final PrefetchWindow viewModelPrefetchWindow = new PrefetchWindow();
+
+    private ItemComparator<T> itemComparator;
+
+    private ItemIdProvider<T> itemIdProvider;
+
+    private KeyIndex<T> keyIndex;
+
+    private Comparator<? super T> sortComparator;
+
+    private ItemTypeMapper<T> itemTypeMapper;
+
+    /**
+     * Registered item types, the view type of each being its index + 1, and their view type by key
+     */
+    private List<ItemType<T, H>> itemTypes;
+
+    private Map<Object, Integer> viewTypesByKey;
+
+    /**
+     * Positions of the items by id, kept up to date by the mutation methods like keyIndex.
+     * Null for a PagedDataSource, which uses positionsById instead.
+     */
+    private KeyIndex<T> idIndex;
+
+    /**
+     * Positions of the loaded items of a PagedDataSource by id, rebuilt on demand when dataVersion
+     * changed, since its pages change as a whole
+     */
+    private LongIntMap positionsById;
+
+    private int positionsByIdVersion;
+
+    private volatile FilterPredicate<T> filterPredicate;
+
+    private QuickFilter filter;
+
+    /**
+     * All the items while a filter is applied, replaced by a modified copy but never modified
+     */
+    private volatile List<T> unfilteredData;
+
+    private CharSequence filterConstraint;
+
+    /**
+     * Constraint of the last filtering started, to filter again with it when the items change
+     */
+    private volatile CharSequence requestedConstraint;
+
+    /**
+     * Incremented by each filtering, so that the filtering in progress stops
+     */
+    private final AtomicInteger filterGeneration = new AtomicInteger();
+
+    /**
+     * Result of the last filtering, to narrow down from it when the constraint is extended
+     */
+    private volatile FilteredItems<T> lastFiltered;
+
+    private final AsyncDiffer<T> asyncDiffer = new AsyncDiffer<T>();
+
+    /**
+     * Incremented on each notification, to detect the updates diffed against outdated data
+     */
+    private int dataVersion;
+
+    private boolean notifyOnNextFrame;
+
+    private boolean notifyScheduled;
+
+    /**
+     * Number of items at the last notification, reported while a notification is pending
+     * so that the list stays consistent with what it displays
+     */
+    private int notifiedSize;
+
+    /**
+     * Whether the list displayed the progress row at the last notification,
+     * since the load more state changes during getView() before the list is notified
+     */
+    private boolean notifiedFooter;
+
+    private final PagedDataSource.Listener pagedDataListener = new PagedDataSource.Listener() {
+        @Override
+        public void onPagesChanged() {
+            onDataChanged();
+        }
+
+        @Override
+        public void onLoadingChanged(boolean loading) {
+            showIndeterminateProgress(loading);
+        }
+    };
+
+    private final Runnable frameNotification = new Runnable() {
+        @Override
+        public void run() {
+            notifyScheduled = false;
+            notifyDataSetChanged();
+        }
+    };
+
+    /**
+     * Posts frameNotification, created when the notifications are first coalesced
+     */
+    private FrameScheduler frameNotifier;
+
+    /**
+     * The list this adapter was last bound to, to rebind its rows in place
+     */
+    private WeakReference<AbsListView> attachedList;
+
+    /**
+     * True until the layout following a diffed replaceAll(), during which
+     * the rows still displaying the same content are not converted again
+     */
+    private boolean skipSameContent;
+
+    /**
+     * Payloads of the row being rebound by notifyItemChanged(), reused
+     */
+    private final List<Object> payloads = new ArrayList<Object>(1);
+
+    private final Runnable endSkipSameContent = new Runnable() {
+        @Override
+        public void run() {
+            skipSameContent = false;
+        }
+    };
+
+    /**
+     * Single listener attached to all the clickable item views, dispatching to childClickListeners
+     */
+    private final View.OnClickListener childClickDispatcher = new View.OnClickListener() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onClick(View view) {
+            OnItemChildClickListener<T> listener = childClickListeners.get(view.getId());
+            BaseAdapterHelper helper = BaseAdapterHelper.from(view);
+            if (listener == null || helper == null) return;
+            listener.onItemChildClick(view, helper.getPosition(), (T) helper.getAssociatedObject());
+        }
+    };
+
     /**
      * Create a QuickAdapter.
      * @param context     The context.
@@ -58,18 +323,31 @@ public abstract class BaseQuickAdapter<T, H extends BaseAdapterHelper> extends B
      * some initialization data.
      * @param context     The context.
      * @param layoutResId The layout resource id of each item.
-     * @param data        A new list is created out of this one to avoid mutable list
+     * @param data        A new list is created out of this one to avoid mutable list,
+     *                    unless it is a {@link PagedDataSource}, which the adapter then displays.
      */
     public BaseQuickAdapter(Context context, int layoutResId, List<T> data) {
-        this.data = data == null ? new ArrayList<T>() : new ArrayList<T>(data);
+        if (data instanceof PagedDataSource) {
+            this.data = data;
+            ((PagedDataSource<T>) data).setListener(pagedDataListener);
+        } else {
+            this.data = data == null ? new ArrayList<T>() : new ArrayList<T>(data);
+        }
         this.context = context;
         this.layoutResId = layoutResId;
+        this.notifiedSize = this.data.size();
     }
 
     @Override
     public int getCount() {
-        int extra = displayIndeterminateProgress ? 1 : 0;
-        return data.size() + extra;
+        return (notifyScheduled ? notifiedSize : data.size()) + (notifiedFooter ? 1 : 0);
+    }
+
+    /**
+     * @return True if the progress row, or the retry or end text of the load more, should be displayed.
+     */
+    private boolean hasFooter() {
+        return displayIndeterminateProgress || loadMore.hasFooter(loadMoreEndText != null);
     }
 
     @Override
@@ -80,118 +358,1562 @@ public abstract class BaseQuickAdapter<T, H extends BaseAdapterHelper> extends B
 
     @Override
     public long getItemId(int position) {
-        return position;
+        if (itemIdProvider == null) return position;
+        if (position >= data.size()) return PROGRESS_ITEM_ID;
+        T item = data.get(position);
+        // Placeholder of a PagedDataSource, whose positions don't move
+        if (item == null) return PROGRESS_ITEM_ID + 1 + position;
+        long id = itemIdProvider.getItemId(item);
+        if (id <= MAX_RESERVED_ITEM_ID) {
+            throw new IllegalStateException("Item id " + id + " is reserved, see MAX_RESERVED_ITEM_ID");
+        }
+        return id;
+    }
+
+    @Override
+    public boolean hasStableIds() {
+        return itemIdProvider != null;
+    }
+
+    /**
+     * Give the items stable ids, so that the list keeps its checked items and
+     * scroll position across changes. Must be set before the adapter is attached to the list.
+     * @param itemIdProvider Returns a unique id for each item, greater than {@link #MAX_RESERVED_ITEM_ID},
+     *                       or null to use the positions as ids.
+     */
+    public void setItemIdProvider(final ItemIdProvider<T> itemIdProvider) {
+        this.itemIdProvider = itemIdProvider;
+        positionsById = null;
+        idIndex = itemIdProvider == null || data instanceof PagedDataSource ? null
+                : new KeyIndex<T>(new KeyExtractor<T>() {
+            @Override
+            public Object getKey(T item) {
+                return itemIdProvider.getItemId(item);
+            }
+        });
+        // The view-models are keyed by id
+        invalidateViewModels();
+    }
+
+    /**
+     * Find the position of an item from its id, in constant time: the positions are indexed
+     * like with {@link #setKeyIndex(boolean, KeyExtractor)}, or for a PagedDataSource, after each
+     * change of its pages. Requires an ItemIdProvider.
+     * @param id The id of the item.
+     * @return The position of the item, or -1 if no item has this id.
+     */
+    public int getPositionForId(long id) {
+        if (itemIdProvider == null) throw new IllegalStateException("No ItemIdProvider set");
+        if (idIndex != null) return idIndex.indexOfKey(data, id);
+        if (positionsById == null || positionsByIdVersion != dataVersion) {
+            if (positionsById == null) positionsById = new LongIntMap();
+            positionsById.clear(data.size());
+            for (int i = 0, size = data.size(); i < size; i++) {
+                T item = peekItem(i);
+                if (item != null) positionsById.putIfAbsent(itemIdProvider.getItemId(item), i);
+            }
+            positionsByIdVersion = dataVersion;
+        }
+        return positionsById.get(id, -1);
     }
 
+    /**
+     * @return The number of registered item types + 2, for the default item type and the progress.
+     */
     @Override
     public int getViewTypeCount() {
-        return 2;
+        return itemTypes == null ? 2 : itemTypes.size() + 2;
     }
 
     @Override
     public int getItemViewType(int position) {
-        return position >= data.size() ? 1 : 0;
+        if (position >= data.size() || notifiedFooter && position == getCount() - 1) return getViewTypeCount() - 1;
+        return itemTypes == null ? 0 : viewTypeOf(data.get(position));
+    }
+
+    /**
+     * @return The view type of the item, 0 for the default type.
+     */
+    private int viewTypeOf(T item) {
+        if (item == null || itemTypeMapper == null) return 0;
+        Integer viewType = viewTypesByKey.get(itemTypeMapper.getItemType(item));
+        return viewType == null ? 0 : viewType;
+    }
+
+    /**
+     * Display some items with another layout and binder than layoutResId and convert().
+     * The types must be registered before the adapter is attached to its list.<br/>
+     * Subclasses implementing getAdapterHelper() must inflate {@link #getItemLayoutResId(int)}
+     * rather than layoutResId, as QuickAdapter does.
+     * @param typeKey     The key returned by the ItemTypeMapper for the items of this type.
+     * @param layoutResId The layout resource id of the items of this type.
+     * @param binder      Adapts the views of this layout to an item.
+     * @see #setItemTypeMapper(ItemTypeMapper)
+     */
+    public void registerItemType(Object typeKey, int layoutResId, ItemBinder<T, H> binder) {
+        if (itemTypes == null) {
+            itemTypes = new ArrayList<ItemType<T, H>>();
+            viewTypesByKey = new HashMap<Object, Integer>();
+        }
+        Integer viewType = viewTypesByKey.get(typeKey);
+        if (viewType != null) {
+            itemTypes.set(viewType - 1, new ItemType<T, H>(layoutResId, binder));
+        } else {
+            itemTypes.add(new ItemType<T, H>(layoutResId, binder));
+            viewTypesByKey.put(typeKey, itemTypes.size());
+        }
+    }
+
+    /**
+     * @param itemTypeMapper Returns the key of the type of each item, items with an unregistered
+     *                       key being displayed with layoutResId and convert().
+     */
+    public void setItemTypeMapper(ItemTypeMapper<T> itemTypeMapper) {
+        this.itemTypeMapper = itemTypeMapper;
+    }
+
+    /**
+     * @return The layout resource id of the item at this position, depending on its type,
+     * to be inflated by getAdapterHelper().
+     */
+    protected int getItemLayoutResId(int position) {
+        if (itemTypes == null || position >= data.size()) return layoutResId;
+        int viewType = viewTypeOf(data.get(position));
+        return viewType == 0 ? layoutResId : itemTypes.get(viewType - 1).layoutResId;
     }
 
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
-        if (getItemViewType(position) == 0) {
+        if (parent instanceof AbsListView && (attachedList == null || attachedList.get() != parent)) {
+            attachedList = new WeakReference<AbsListView>((AbsListView) parent);
+        }
+        if (getItemViewType(position) != getViewTypeCount() - 1) {
             final H helper = getAdapterHelper(position, convertView, parent);
+            if (itemTypes != null && helper.getLayoutId() != getItemLayoutResId(position)) {
+                throw new IllegalStateException("getAdapterHelper() must inflate getItemLayoutResId(position)"
+                        + " when item types are registered");
+            }
+            helper.setSkipUnchanged(skipUnchanged);
+            if (childClickListeners != null) {
+                helper.attachClickDispatcher(childClickDispatcher, childClickListeners, childClickListenersVersion);
+            }
             T item = getItem(position);
-            convert(helper, item);
+            if (data instanceof PagedDataSource) {
+                if (item == null) {
+                    helper.onBindStarted(null);
+                    convertPlaceholder(helper, position);
+                    helper.onBindFinished();
+                } else {
+                    helper.getView().setVisibility(View.VISIBLE);
+                    bind(helper, item);
+                }
+            } else if (!skipSameContent || !isSameContent(helper.getAssociatedObject(), item)) {
+                bind(helper, item);
+            }
             helper.setAssociatedObject(item);
+            if (textExtractors != null) prefetchTexts(helper, position);
+            if (imageUrlExtractors != null) prefetchImages(helper, position);
+            if (viewModelBinder != null && viewModelPrefetchDistance > 0) prepareViewModels(position);
+            if (loadMore.onDisplayed(position, data.size())) postLoadMore();
             return helper.getView();
         }
 
         return createIndeterminateProgressView(convertView, parent);
     }
 
-    private View createIndeterminateProgressView(View convertView, ViewGroup parent) {
-        if (convertView == null) {
-            FrameLayout container = new FrameLayout(context);
-            container.setForegroundGravity(Gravity.CENTER);
-            ProgressBar progress = new ProgressBar(context);
-            container.addView(progress);
-            convertView = container;
+    private void bind(H helper, T item) {
+        bind(helper, item, null);
+    }
+
+    /**
+     * @param payloads What changed in the item since it was bound, or null to bind it entirely.
+     */
+    private void bind(H helper, T item, List<Object> payloads) {
+        helper.onBindStarted(item);
+        int viewType = itemTypes == null ? 0 : viewTypeOf(item);
+        if (viewType != 0) {
+            itemTypes.get(viewType - 1).binder.convert(helper, item);
+        } else {
+            Object viewModel = viewModelBinder == null ? null : viewModelOf(item);
+            if (viewModel != null) viewModelBinder.apply(helper, viewModel);
+            else if (payloads != null) convert(helper, item, payloads);
+            else convert(helper, item);
         }
-        return convertView;
+        helper.onBindFinished();
     }
 
-    @Override
-    public boolean isEnabled(int position) {
-        return position < data.size();
+    /**
+     * Returns the cached view-model of an item. Without prefetching, a missing
+     * one is prepared right away, otherwise null is returned until it's ready.
+     */
+    private Object viewModelOf(T item) {
+        Object key = viewModelKey(item);
+        Object viewModel = viewModels.get(key);
+        if (viewModel == null && viewModelPrefetchDistance == 0) {
+            viewModel = viewModelBinder.prepare(item);
+            if (viewModel != null) viewModels.put(key, item, viewModel);
+        }
+        return viewModel;
     }
 
-    public void add(T elem) {
-        data.add(elem);
-        notifyDataSetChanged();
+    /**
+     * The view-models are keyed by the stable id of the items if any, by their identity otherwise.
+     */
+    private Object viewModelKey(T item) {
+        if (itemIdProvider != null) return itemIdProvider.getItemId(item);
+        return new ViewModelCache.IdentityKey(item);
     }
 
-    public void addAll(List<T> elem) {
-        data.addAll(elem);
-        notifyDataSetChanged();
+    private void prepareViewModels(int position) {
+        if (!viewModelPrefetchWindow.onBind(position, viewModelPrefetchDistance, data.size())) return;
+        final List<PendingViewModel<T>> items = new ArrayList<PendingViewModel<T>>();
+        final List<Object> keys = new ArrayList<Object>();
+        for (int p = viewModelPrefetchWindow.from; p < viewModelPrefetchWindow.to; p++) {
+            T item = peekItem(p);
+            if (item == null) continue;
+            Object key = viewModelKey(item);
+            if (viewModels.contains(key) || pendingViewModels.containsKey(key)) continue;
+            PendingViewModel<T> pending = new PendingViewModel<T>(item);
+            pendingViewModels.put(key, pending);
+            items.add(pending);
+            keys.add(key);
+        }
+        if (items.isEmpty()) return;
+
+        final ViewModelBinder<T, Object, H> binder = viewModelBinder;
+        final int generation = viewModelGeneration;
+        AdapterExecutors.BACKGROUND.execute(new Runnable() {
+            @Override
+            public void run() {
+                final Object[] prepared = new Object[items.size()];
+                for (int i = 0; i < prepared.length; i++) {
+                    try {
+                        prepared[i] = binder.prepare(items.get(i).item);
+                    } catch (RuntimeException e) {
+                        // convert() will be used instead
+                        Log.w(TAG, "Unable to prepare the view-model of " + items.get(i).item, e);
+                    }
+                }
+                AdapterExecutors.MAIN.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != viewModelGeneration || binder != viewModelBinder) return;
+                        for (int i = 0; i < prepared.length; i++) {
+                            // The item changed while it was prepared
+                            if (pendingViewModels.get(keys.get(i)) != items.get(i)) continue;
+                            pendingViewModels.remove(keys.get(i));
+                            if (prepared[i] != null) viewModels.put(keys.get(i), items.get(i).item, prepared[i]);
+                        }
+                    }
+                });
+            }
+        });
     }
 
-    public void set(T oldElem, T newElem) {
-        set(data.indexOf(oldElem), newElem);
+    /**
+     * Forget the view-model of an item which changed.
+     */
+    private void invalidateViewModel(T item) {
+        if (viewModelBinder == null || item == null) return;
+        Object key = viewModelKey(item);
+        viewModels.remove(key);
+        pendingViewModels.remove(key);
     }
 
-    public void set(int index, T elem) {
-        data.set(index, elem);
-        notifyDataSetChanged();
+    private void invalidateViewModels() {
+        if (viewModelBinder == null) return;
+        viewModelGeneration++;
+        viewModels.clear();
+        pendingViewModels.clear();
     }
 
-    public void remove(T elem) {
-        data.remove(elem);
-        notifyDataSetChanged();
+    @SuppressWarnings("unchecked")
+    private boolean isSameContent(Object boundItem, T item) {
+        if (itemComparator == null || boundItem == null || item == null) return false;
+        T oldItem = (T) boundItem;
+        return itemComparator.areItemsTheSame(oldItem, item) && itemComparator.areContentsTheSame(oldItem, item);
     }
 
-    public void remove(int index) {
-        data.remove(index);
-        notifyDataSetChanged();
+    /**
+     * Convert again the row of an item, if it is on screen, without notifying the list.
+     * Other rows are left untouched, and nothing is converted if the item is off screen.
+     * With a ViewModelBinder, the view-model of the item is prepared again and applied instead.
+     * @param position The position of the item.
+     * @param payload  Describes what changed, given to {@link #convert(BaseAdapterHelper, Object, List)}. May be null.
+     */
+    public void notifyItemChanged(int position, Object payload) {
+        // A full layout is pending anyway
+        if (notifyScheduled || position < 0 || position >= data.size()) return;
+        T item = data.get(position);
+        if (item == null) return;
+        invalidateViewModel(item);
+        AbsListView list = getAttachedList();
+        // Not displayed, the row will be converted when it is
+        if (list == null) return;
+        for (int i = 0, count = list.getChildCount(); i < count; i++) {
+            Object tag = list.getChildAt(i).getTag();
+            if (!(tag instanceof BaseAdapterHelper) || ((BaseAdapterHelper) tag).getPosition() != position) continue;
+            @SuppressWarnings("unchecked")
+            H helper = (H) tag;
+            if (payload != null) payloads.add(payload);
+            try {
+                bind(helper, item, payloads);
+                helper.setAssociatedObject(item);
+            } finally {
+                payloads.clear();
+            }
+            return;
+        }
     }
 
-    public void replaceAll(List<T> elem) {
-        data.clear();
-        data.addAll(elem);
-        notifyDataSetChanged();
+    /**
+     * @return The list currently displaying this adapter, or null.
+     */
+    private AbsListView getAttachedList() {
+        AbsListView list = attachedList == null ? null : attachedList.get();
+        if (list == null) return null;
+        ListAdapter adapter = list.getAdapter();
+        if (adapter instanceof WrapperListAdapter) adapter = ((WrapperListAdapter) adapter).getWrappedAdapter();
+        return adapter == this ? list : null;
     }
 
-    public boolean contains(T elem) {
-        return data.contains(elem);
+    private void prefetchTexts(H helper, int position) {
+        for (int i = 0, size = textExtractors.size(); i < size; i++) {
+            int viewId = textExtractors.keyAt(i);
+            View view = helper.getView(viewId);
+            // Row of another type, wait for one having the view
+            if (!(view instanceof MeasuredTextView)) return;
+            TextMeasureCache.Style style = TextMeasureCache.Style.from((MeasuredTextView) view);
+            // Not laid out yet, wait for a recycled row
+            if (style == null) return;
+            textStyles.put(viewId, style);
+        }
+        if (!textPrefetchWindow.onBind(position, textPrefetchDistance, data.size())) return;
+        TextMeasureCache cache = TextMeasureCache.getInstance();
+        for (int p = textPrefetchWindow.from; p < textPrefetchWindow.to; p++) {
+            T item = peekItem(p);
+            if (item == null) continue;
+            for (int i = 0, size = textExtractors.size(); i < size; i++) {
+                cache.prefetch(textExtractors.valueAt(i).getText(item), textStyles.valueAt(i));
+            }
+        }
     }
 
-    /** Clear data list */
-    public void clear() {
-        data.clear();
-        notifyDataSetChanged();
+    /**
+     * Returns the item at a position without loading it: the items of a PagedDataSource
+     * are null unless their page is loaded, so that prefetching doesn't load pages away
+     * from the viewport, nor move the page evictions are based on.
+     */
+    @SuppressWarnings("unchecked")
+    private T peekItem(int position) {
+        return data instanceof PagedDataSource ? ((PagedDataSource<T>) data).peek(position) : data.get(position);
     }
 
-    public void showIndeterminateProgress(boolean display) {
-        if (display == displayIndeterminateProgress) return;
-        displayIndeterminateProgress = display;
-        notifyDataSetChanged();
+    private void prefetchImages(H helper, int position) {
+        ImageLoader loader = helper.getImageLoader();
+        int distance = imagePrefetchWindow.scaledDistance(imagePrefetchDistance);
+        boolean prefetch = imagePrefetchWindow.onBind(position, distance, data.size());
+
+        // Cancel what is now behind or too far ahead
+        for (int i = imagePrefetches.size() - 1; i >= 0; i--) {
+            int prefetchedPosition = imagePrefetches.keyAt(i);
+            if (prefetchedPosition < imagePrefetchWindow.aheadFrom || prefetchedPosition >= imagePrefetchWindow.aheadTo) {
+                for (String url : imagePrefetches.valueAt(i)) {
+                    if (url != null) loader.cancelPrefetch(url);
+                }
+                imagePrefetches.removeAt(i);
+            }
+        }
+
+        if (!prefetch) return;
+        for (int p = imagePrefetchWindow.from; p < imagePrefetchWindow.to; p++) {
+            T item = peekItem(p);
+            if (item == null) continue;
+            String[] urls = new String[imageUrlExtractors.size()];
+            for (int i = 0; i < urls.length; i++) {
+                ImageView view = helper.getView(imageUrlExtractors.keyAt(i));
+                if (view == null) continue;
+                urls[i] = imageUrlExtractors.valueAt(i).getImageUrl(item);
+                if (urls[i] != null) {
+                    loader.prefetch(urls[i], BaseAdapterHelper.targetWidth(view),
+                            BaseAdapterHelper.targetHeight(view), view.getScaleType());
+                }
+            }
+            imagePrefetches.put(p, urls);
+        }
+    }
+
+    private View createIndeterminateProgressView(View convertView, ViewGroup parent) {
+        if (convertView == null) {
+            FrameLayout container = new FrameLayout(context);
+            container.setForegroundGravity(Gravity.CENTER);
+            ProgressBar progress = new ProgressBar(context);
+            container.addView(progress);
+            TextView retry = new TextView(context);
+            retry.setGravity(Gravity.CENTER);
+            retry.setOnClickListener(retryClickListener);
+            container.addView(retry, new FrameLayout.LayoutParams(
+                    ViewGroup.LayoutParams.MATCH_PARENT, ViewGroup.LayoutParams.MATCH_PARENT));
+            convertView = container;
+        }
+        // Show the progress, or the retry text if the load more failed, or the end text once exhausted
+        boolean error = loadMore.get() == LOAD_MORE_ERROR && !displayIndeterminateProgress;
+        boolean end = loadMore.get() == LOAD_MORE_EXHAUSTED && loadMoreEndText != null && !displayIndeterminateProgress;
+        ViewGroup container = (ViewGroup) convertView;
+        container.getChildAt(0).setVisibility(error || end ? View.GONE : View.VISIBLE);
+        TextView text = (TextView) container.getChildAt(1);
+        text.setVisibility(error || end ? View.VISIBLE : View.GONE);
+        text.setText(end ? loadMoreEndText : loadMoreErrorText);
+        text.setClickable(error);
+        return convertView;
     }
 
     /**
-     * Implement this method and use the helper to adapt the view to the given item.
-     * @param helper A fully initialized helper.
-     * @param item   The item that needs to be displayed.
+     * Call the listener when the list displays an item close to the end of the list,
+     * to load the next items, showing a progress at the end of the list meanwhile.
+     * The listener must then call {@link #finishLoadMore(boolean)} or {@link #failLoadMore()}.
+     * @param listener         The listener, or null to stop loading more items, which resets the load more.
+     * @param prefetchDistance The number of items after the displayed one under which loading starts.
      */
-    protected abstract void convert(H helper, T item);
+    public void setOnLoadMoreListener(OnLoadMoreListener<T> listener, int prefetchDistance) {
+        if (listener == null && loadMoreListener != null) {
+            // No one would finish the pending load, drop its progress row
+            loadMoreListener = null;
+            loadMore.disable();
+            resetLoadMore();
+        }
+        this.loadMoreListener = listener;
+        if (listener == null) return;
+        loadMore.enable(prefetchDistance);
+        // Nothing to display, so no getView() to trigger it
+        if (loadMore.startIfEmpty(data.isEmpty())) postLoadMore();
+    }
+
+    private void postLoadMore() {
+        // Not during the layout calling getView()
+        AdapterExecutors.MAIN.post(loadMoreStarter);
+    }
 
     /**
-     * You can override this method to use a custom BaseAdapterHelper in order to fit your needs
-     * @param position    The position of the item within the adapter's data set of the item whose view we want.
-     * @param convertView The old view to reuse, if possible. Note: You should check that this view
-     *                    is non-null and of an appropriate type before using. If it is not possible to convert
-     *                    this view to display the correct data, this method can create a new view.
-     *                    Heterogeneous lists can specify their number of view types, so that this View is
-     *                    always of the right type (see {@link #getViewTypeCount()} and
-     *                    {@link #getItemViewType(int)}).
-     * @param parent      The parent that this view will eventually be attached to
-     * @return An instance of BaseAdapterHelper
+     * Call it once the items requested by the OnLoadMoreListener were added.
+     * @param exhausted True if there are no more items to load.
      */
-    protected abstract H getAdapterHelper(int position, View convertView, ViewGroup parent);
+    public void finishLoadMore(boolean exhausted) {
+        if (loadMore.finish(exhausted)) onDataChanged();
+    }
+
+    /**
+     * Call it if the items requested by the OnLoadMoreListener couldn't be loaded.
+     * The end of the list then shows a retry text, see {@link #setLoadMoreErrorText(CharSequence)}.
+     */
+    public void failLoadMore() {
+        if (loadMore.fail()) onDataChanged();
+    }
 
+    /**
+     * Load more again after a failure, called when the retry text is clicked.
+     */
+    public void retryLoadMore() {
+        if (loadMore.retry()) postLoadMore();
+    }
+
+    /**
+     * Go back to the initial state, to load more again once exhausted, e.g. after a refresh.
+     * clear() also resets the load more.
+     */
+    public void resetLoadMore() {
+        AdapterExecutors.MAIN.removeCallbacks(loadMoreStarter);
+        boolean hadFooter = hasFooter();
+        loadMore.reset();
+        if (hadFooter != hasFooter()) onDataChanged();
+        if (loadMore.startIfEmpty(data.isEmpty())) postLoadMore();
+    }
+
+    /**
+     * @return One of the LOAD_MORE_* states.
+     */
+    public int getLoadMoreState() {
+        return loadMore.get();
+    }
+
+    public void setLoadMoreErrorText(CharSequence loadMoreErrorText) {
+        this.loadMoreErrorText = loadMoreErrorText;
+    }
+
+    /**
+     * @param loadMoreEndText The text displayed at the end of the list once there are no more items to load,
+     *                        or null to display nothing.
+     */
+    public void setLoadMoreEndText(CharSequence loadMoreEndText) {
+        this.loadMoreEndText = loadMoreEndText;
+        if (loadMore.get() == LOAD_MORE_EXHAUSTED) onDataChanged();
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        return position < data.size();
+    }
+
+    public void add(T elem) {
+        if (unfilteredData != null) {
+            // Displayed once filtered, if it matches
+            List<T> all = new ArrayList<T>(unfilteredData);
+            all.add(elem);
+            updateUnfiltered(all, true);
+            return;
+        }
+        if (sortComparator != null) {
+            int index = insertionIndex(elem);
+            data.add(index, elem);
+            indexAdded(index, elem);
+            onDataChanged();
+            return;
+        }
+        data.add(elem);
+        indexAdded(data.size() - 1, elem);
+        onDataChanged();
+    }
+
+    public void addAll(List<T> elem) {
+        if (unfilteredData != null) {
+            List<T> all = new ArrayList<T>(unfilteredData);
+            all.addAll(elem);
+            updateUnfiltered(all, true);
+            return;
+        }
+        if (sortComparator != null) {
+            List<T> sorted = new ArrayList<T>(elem);
+            Collections.sort(sorted, sortComparator);
+            addAllSorted(sorted);
+            return;
+        }
+        int start = data.size();
+        data.addAll(elem);
+        if (keyIndex != null || idIndex != null) {
+            for (int i = 0, size = elem.size(); i < size; i++) indexAdded(start + i, elem.get(i));
+        }
+        onDataChanged();
+    }
+
+    /**
+     * Insert items at the given position.
+     * @param index The position of the first inserted item.
+     * @param elem  The items to insert.
+     */
+    public void addAll(int index, List<T> elem) {
+        checkNotSorted();
+        if (unfilteredData != null) {
+            // Insert before the displayed item at index, or after the one before it
+            List<T> all = new ArrayList<T>(unfilteredData);
+            int position = all.size();
+            if (index < data.size()) position = identityIndexOf(all, data.get(index));
+            else if (index > 0) position = identityIndexOf(all, data.get(index - 1)) + 1;
+            all.addAll(position < 0 ? all.size() : position, elem);
+            updateUnfiltered(all, true);
+            return;
+        }
+        data.addAll(index, elem);
+        invalidateIndexes();
+        onDataChanged();
+    }
+
+    public void set(T oldElem, T newElem) {
+        set(indexOf(oldElem), newElem);
+    }
+
+    public void set(int index, T elem) {
+        if (unfilteredData != null) {
+            List<T> all = new ArrayList<T>(unfilteredData);
+            replaceIdentical(all, data.get(index), elem);
+            updateUnfiltered(all, true);
+        }
+        T oldElem = data.set(index, elem);
+        indexSet(index, oldElem, elem);
+        invalidateViewModel(oldElem);
+        invalidateViewModel(elem);
+        if (sortComparator != null) moveToSortedPosition(index);
+        onDataChanged();
+    }
+
+    /**
+     * Replace consecutive items.
+     * @param index The position of the first item to replace.
+     * @param elem  The new items, which must all fit in the current list.
+     */
+    public void setRange(int index, List<T> elem) {
+        checkNotSorted();
+        if (index < 0 || index + elem.size() > data.size()) {
+            throw new IndexOutOfBoundsException("Range [" + index + ", " + (index + elem.size())
+                    + ") out of [0, " + data.size() + ")");
+        }
+        if (unfilteredData != null) {
+            List<T> all = new ArrayList<T>(unfilteredData);
+            for (int i = 0, size = elem.size(); i < size; i++) replaceIdentical(all, data.get(index + i), elem.get(i));
+            updateUnfiltered(all, true);
+        }
+        for (int i = 0, size = elem.size(); i < size; i++) {
+            T oldElem = data.set(index + i, elem.get(i));
+            indexSet(index + i, oldElem, elem.get(i));
+            invalidateViewModel(oldElem);
+            invalidateViewModel(elem.get(i));
+        }
+        onDataChanged();
+    }
+
+    public void remove(T elem) {
+        int index = indexOf(elem);
+        if (index != -1) remove(index);
+    }
+
+    /**
+     * Sort the items with the given comparator, and keep them sorted: add() and addAll()
+     * insert the items at their sorted position, set() moves the new item to its position.
+     * addAll(int, List) and setRange() are then not supported.
+     * @param sortComparator The order of the items, or null to stop sorting.
+     */
+    public void setSortComparator(Comparator<? super T> sortComparator) {
+        if (sortComparator != null && data instanceof PagedDataSource) {
+            throw new IllegalStateException("A PagedDataSource can't be sorted");
+        }
+        this.sortComparator = sortComparator;
+        if (sortComparator == null) return;
+        if (unfilteredData != null) updateUnfiltered(new ArrayList<T>(unfilteredData), false);
+        Collections.sort(data, sortComparator);
+        invalidateIndexes();
+        onDataChanged();
+    }
+
+    /**
+     * Insert items already sorted with the sort comparator, merging them with the
+     * current items in linear time. Requires a sort comparator.
+     * @param elem Items sorted according to the sort comparator.
+     */
+    public void addAllSorted(List<T> elem) {
+        if (sortComparator == null) throw new IllegalStateException("No sort comparator set");
+        if (elem.isEmpty()) return;
+        if (unfilteredData != null) {
+            List<T> all = new ArrayList<T>(unfilteredData);
+            all.addAll(elem);
+            updateUnfiltered(all, true);
+            return;
+        }
+        List<T> merged = new ArrayList<T>(data.size() + elem.size());
+        int i = 0;
+        int j = 0;
+        while (i < data.size() && j < elem.size()) {
+            // Current items first on equal keys
+            if (sortComparator.compare(data.get(i), elem.get(j)) <= 0) merged.add(data.get(i++));
+            else merged.add(elem.get(j++));
+        }
+        if (i != data.size()) invalidateIndexes();
+        while (i < data.size()) merged.add(data.get(i++));
+        int start = merged.size();
+        while (j < elem.size()) merged.add(elem.get(j++));
+        data.clear();
+        data.addAll(merged);
+        if (keyIndex != null || idIndex != null) {
+            for (int k = start; k < merged.size(); k++) indexAdded(k, merged.get(k));
+        }
+        onDataChanged();
+    }
+
+    /**
+     * Move an item to its sorted position, after its sort key changed. Requires a sort comparator.
+     * @param index The current position of the item.
+     */
+    public void reposition(int index) {
+        if (sortComparator == null) throw new IllegalStateException("No sort comparator set");
+        if (unfilteredData != null) updateUnfiltered(new ArrayList<T>(unfilteredData), false);
+        if (moveToSortedPosition(index)) onDataChanged();
+    }
+
+    /**
+     * @return false if the item was already at its position.
+     */
+    private boolean moveToSortedPosition(int index) {
+        T elem = data.get(index);
+        boolean afterPrevious = index == 0 || sortComparator.compare(data.get(index - 1), elem) <= 0;
+        boolean beforeNext = index == data.size() - 1 || sortComparator.compare(elem, data.get(index + 1)) <= 0;
+        if (afterPrevious && beforeNext) return false;
+        data.remove(index);
+        indexRemoved(index, elem);
+        int newIndex = insertionIndex(elem);
+        data.add(newIndex, elem);
+        indexAdded(newIndex, elem);
+        return true;
+    }
+
+    /**
+     * @return The position after the items sorted before or equal to elem.
+     */
+    private int insertionIndex(T elem) {
+        int low = 0;
+        int high = data.size();
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortComparator.compare(data.get(middle), elem) <= 0) low = middle + 1;
+            else high = middle;
+        }
+        return low;
+    }
+
+    /**
+     * While filtered, the mutation methods also apply to all the items. They are given a
+     * modified copy of them, since the filtering may be reading the current ones.
+     * @param all      The new unfiltered items.
+     * @param refilter True to filter them again, e.g. to display the added items that match.
+     */
+    private void updateUnfiltered(List<T> all, boolean refilter) {
+        if (sortComparator != null) Collections.sort(all, sortComparator);
+        unfilteredData = all;
+        lastFiltered = null;
+        if (refilter) refilter();
+    }
+
+    private static <T> void replaceIdentical(List<T> items, T oldElem, T newElem) {
+        int position = identityIndexOf(items, oldElem);
+        if (position != -1) items.set(position, newElem);
+    }
+
+    private static int identityIndexOf(List<?> items, Object elem) {
+        for (int i = 0, size = items.size(); i < size; i++) {
+            if (items.get(i) == elem) return i;
+        }
+        return -1;
+    }
+
+    private void checkNotSorted() {
+        if (sortComparator != null) throw new UnsupportedOperationException("Not supported while sorted");
+    }
+
+    public void remove(int index) {
+        if (unfilteredData != null) {
+            List<T> all = new ArrayList<T>(unfilteredData);
+            int position = identityIndexOf(all, data.get(index));
+            if (position != -1) all.remove(position);
+            updateUnfiltered(all, false);
+        }
+        T elem = data.remove(index);
+        indexRemoved(index, elem);
+        invalidateViewModel(elem);
+        onDataChanged();
+    }
+
+    /**
+     * Remove consecutive items.
+     * @param fromIndex The position of the first item to remove.
+     * @param toIndex   The position after the last item to remove.
+     */
+    public void removeRange(int fromIndex, int toIndex) {
+        List<T> removed = data.subList(fromIndex, toIndex);
+        if (unfilteredData != null) {
+            List<T> all = new ArrayList<T>(unfilteredData);
+            for (int i = 0, size = removed.size(); i < size; i++) {
+                int position = identityIndexOf(all, removed.get(i));
+                if (position != -1) all.remove(position);
+            }
+            updateUnfiltered(all, false);
+        }
+        if (viewModelBinder != null) {
+            for (int i = 0, size = removed.size(); i < size; i++) invalidateViewModel(removed.get(i));
+        }
+        removed.clear();
+        invalidateIndexes();
+        onDataChanged();
+    }
+
+    /**
+     * Replace the items of the adapter.<br/>
+     * If an ItemComparator was set, only the rows whose content changed are converted
+     * again, and the list keeps the first visible item at the same place.
+     * See {@link #setItemComparator(ItemComparator)}.
+     */
+    public void replaceAll(List<T> elem) {
+        asyncDiffer.cancel();
+        if (sortComparator != null) elem = sortedCopy(elem);
+        if (unfilteredData != null) {
+            // Filter the new items instead
+            updateUnfiltered(new ArrayList<T>(elem), true);
+            return;
+        }
+        if (itemComparator == null) {
+            replaceData(elem);
+            onDataChanged();
+            return;
+        }
+        flushPendingNotification();
+        applyDiff(elem, ListDiff.compute(data, elem, itemComparator));
+    }
+
+    /**
+     * Same as {@link #replaceAll(List)}, but the items are diffed on a background thread.
+     * The ItemComparator must then be thread safe.<br/>
+     * If replaceAllAsync() or replaceAll() is called again before the diff completes,
+     * this update is dropped.
+     * @param elem      The new items, copied before this method returns.
+     * @param onApplied Called on the UI thread once the items are displayed, may be null.
+     */
+    public void replaceAllAsync(List<T> elem, Runnable onApplied) {
+        if (itemComparator == null || unfilteredData != null) {
+            replaceAll(elem);
+            if (onApplied != null) onApplied.run();
+            return;
+        }
+        submitDiff(sortComparator != null ? sortedCopy(elem) : elem, itemComparator, onApplied);
+    }
+
+    private List<T> sortedCopy(List<T> elem) {
+        List<T> sorted = new ArrayList<T>(elem);
+        Collections.sort(sorted, sortComparator);
+        return sorted;
+    }
+
+    private void submitDiff(List<T> newData, ItemComparator<T> comparator, final Runnable onApplied) {
+        final int version = dataVersion;
+        asyncDiffer.submit(data, newData, comparator, new AsyncDiffer.Callback<T>() {
+            @Override
+            public void onDiffComputed(List<T> newData, ListDiff diff) {
+                if (version == dataVersion && !notifyScheduled) {
+                    applyDiff(newData, diff);
+                } else {
+                    // The items were modified meanwhile, the diff doesn't apply
+                    replaceData(newData);
+                    notifyDataSetChanged();
+                }
+                if (onApplied != null) onApplied.run();
+            }
+        });
+    }
+
+    private void applyDiff(List<T> newData, ListDiff diff) {
+        AbsListView list = getAttachedList();
+
+        // Same rows, convert the changed ones in place without a layout pass
+        if (list != null && !diff.isStructureChanged()) {
+            dataVersion++;
+            replaceData(newData);
+            for (int i = 0, count = list.getChildCount(); i < count; i++) {
+                Object tag = list.getChildAt(i).getTag();
+                if (!(tag instanceof BaseAdapterHelper)) continue;
+                @SuppressWarnings("unchecked")
+                H helper = (H) tag;
+                int position = helper.getPosition();
+                if (position >= data.size()) continue;
+                T item = data.get(position);
+                if (!isSameContent(helper.getAssociatedObject(), item)) bind(helper, item);
+                helper.setAssociatedObject(item);
+            }
+            return;
+        }
+
+        // Anchor the first visible row to its item, which may move
+        int anchorPosition = -1;
+        int anchorTop = 0;
+        int headerCount = 0;
+        if (list instanceof ListView && list.getChildCount() > 0) {
+            View first = list.getChildAt(0);
+            if (first.getTag() instanceof BaseAdapterHelper) {
+                anchorPosition = ((BaseAdapterHelper) first.getTag()).getPosition();
+                anchorTop = first.getTop();
+                headerCount = list.getFirstVisiblePosition() - anchorPosition;
+            }
+        }
+
+        replaceData(newData);
+        notifyDataSetChanged();
+        skipSameContent = true;
+        AdapterExecutors.MAIN.removeCallbacks(endSkipSameContent);
+        AdapterExecutors.MAIN.post(endSkipSameContent);
+
+        if (anchorPosition != -1) {
+            int newPosition = diff.newPositionOf(anchorPosition);
+            if (newPosition != -1 && newPosition != anchorPosition) {
+                ((ListView) list).setSelectionFromTop(newPosition + headerCount, anchorTop);
+            }
+        }
+    }
+
+    private void replaceData(List<T> newData) {
+        if (viewModelBinder != null) retainViewModels(unfilteredData != null ? unfilteredData : newData);
+        data.clear();
+        data.addAll(newData);
+        invalidateIndexes();
+    }
+
+    /**
+     * Forget the view-models of the items no longer in the adapter, or replaced by
+     * another item with the same key whose content differs, and keep the others.
+     * @param items All the items of the adapter, filtered out ones included.
+     */
+    private void retainViewModels(List<T> items) {
+        HashMap<Object, T> current = new HashMap<Object, T>();
+        for (int i = 0, size = items.size(); i < size; i++) {
+            T item = items.get(i);
+            if (item != null) current.put(viewModelKey(item), item);
+        }
+        viewModels.retain(current, itemComparator);
+        Iterator<Map.Entry<Object, PendingViewModel<T>>> iterator = pendingViewModels.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, PendingViewModel<T>> entry = iterator.next();
+            if (current.get(entry.getKey()) != entry.getValue().item) iterator.remove();
+        }
+    }
+
+    /**
+     * Update the key index and the id index after an item was inserted.
+     */
+    private void indexAdded(int position, T item) {
+        if (keyIndex != null) keyIndex.onAdded(data, position, item);
+        if (idIndex != null) idIndex.onAdded(data, position, item);
+    }
+
+    private void indexSet(int position, T oldItem, T newItem) {
+        if (keyIndex != null) keyIndex.onSet(data, position, oldItem, newItem);
+        if (idIndex != null) idIndex.onSet(data, position, oldItem, newItem);
+    }
+
+    private void indexRemoved(int position, T item) {
+        if (keyIndex != null) keyIndex.onRemoved(data, position, item);
+        if (idIndex != null) idIndex.onRemoved(data, position, item);
+    }
+
+    private void invalidateIndexes() {
+        if (keyIndex != null) keyIndex.invalidate();
+        if (idIndex != null) idIndex.invalidate();
+    }
+
+    public boolean contains(T elem) {
+        return indexOf(elem) != -1;
+    }
+
+    /**
+     * @return The position of the item, or of the item with the same key if a key index
+     * is enabled, or -1. See {@link #setKeyIndex(boolean, KeyExtractor)}.
+     */
+    public int indexOf(T elem) {
+        return keyIndex == null ? data.indexOf(elem) : keyIndex.indexOf(data, elem);
+    }
+
+    /**
+     * Maintain a hash index of the positions of the items, so that contains(), indexOf(),
+     * set(oldElem, newElem) and remove(elem) don't scan the list. Adding, replacing and
+     * removing single items keep the index up to date in constant time, the index being rebuilt
+     * in O(n) every 64 insertions or removals in the middle of the list, and after other changes.
+     * Subclasses modifying {@link #data} directly must replace it with replaceAll().
+     * @param enabled      True to maintain the index.
+     * @param keyExtractor Returns the key items are compared with, or null to compare the items themselves.
+     */
+    public void setKeyIndex(boolean enabled, KeyExtractor<T> keyExtractor) {
+        if (enabled && data instanceof PagedDataSource) {
+            throw new IllegalStateException("A PagedDataSource can't be indexed");
+        }
+        keyIndex = enabled ? new KeyIndex<T>(keyExtractor) : null;
+    }
+
+    /** Clear data list */
+    public void clear() {
+        asyncDiffer.cancel();
+        if (unfilteredData != null) {
+            filterGeneration.incrementAndGet();
+            unfilteredData = null;
+            lastFiltered = null;
+            filterConstraint = null;
+            requestedConstraint = null;
+        }
+        data.clear();
+        invalidateIndexes();
+        invalidateViewModels();
+        onDataChanged();
+        if (loadMore.isActive()) resetLoadMore();
+    }
+
+    /**
+     * Filters the items with the FilterPredicate on a background thread. The results are
+     * applied through a diff, like replaceAllAsync(), and an empty constraint restores all
+     * the items. While filtered, the mutation methods apply to all the items: added items
+     * are displayed if they match once filtered again, replaced and removed ones right away,
+     * and clear() removes the filter.
+     * See {@link #setFilterPredicate(FilterPredicate)}.
+     */
+    @Override
+    public Filter getFilter() {
+        if (data instanceof PagedDataSource) {
+            throw new IllegalStateException("A PagedDataSource can't be filtered");
+        }
+        if (filter == null) filter = new QuickFilter();
+        return filter;
+    }
+
+    /**
+     * Same as getFilter().filter(constraint), but also stops the filtering in progress,
+     * which getFilter().filter() waits for.
+     * @param constraint The constraint given to the FilterPredicate.
+     */
+    public void filter(CharSequence constraint) {
+        filterGeneration.incrementAndGet();
+        getFilter().filter(constraint);
+    }
+
+    /**
+     * @param filterPredicate Tells which items match a constraint, or null to match
+     *                        the items whose toString() contains the constraint, ignoring case.
+     */
+    public void setFilterPredicate(FilterPredicate<T> filterPredicate) {
+        this.filterPredicate = filterPredicate;
+        lastFiltered = null;
+    }
+
+    /**
+     * @return All the items, or null if no filter is applied. Called on the filter thread.
+     */
+    private List<T> getUnfilteredData() {
+        List<T> source = unfilteredData;
+        if (source != null) return source;
+        // Copy the current items on the UI thread
+        FutureTask<List<T>> snapshot = new FutureTask<List<T>>(new Callable<List<T>>() {
+            @Override
+            public List<T> call() {
+                if (unfilteredData == null) unfilteredData = new ArrayList<T>(data);
+                return unfilteredData;
+            }
+        });
+        AdapterExecutors.MAIN.post(snapshot);
+        try {
+            return snapshot.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    /**
+     * Filter all the items again with the latest constraint, after they changed. This runs on
+     * a background thread rather than through the Filter, which would drop a filtering
+     * requested in the meantime.
+     */
+    private void refilter() {
+        final List<T> source = unfilteredData;
+        final CharSequence constraint = requestedConstraint;
+        final int generation = filterGeneration.get();
+        AdapterExecutors.BACKGROUND.execute(new Runnable() {
+            @Override
+            public void run() {
+                final List<T> items = filterItems(source, constraint, generation);
+                if (items == null) return;
+                AdapterExecutors.MAIN.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        applyFiltered(new FilteredItems<T>(source, constraint, items, generation), constraint);
+                    }
+                });
+            }
+        });
+    }
+
+    private void applyFiltered(final FilteredItems<T> filtered, CharSequence constraint) {
+        if (filtered == null || filtered.generation != filterGeneration.get() || unfilteredData == null) return;
+        if (filtered.source != unfilteredData) {
+            // The items changed while they were filtered
+            refilter();
+            return;
+        }
+        final boolean cleared = constraint == null || constraint.length() == 0;
+        filterConstraint = cleared ? null : constraint;
+        // Only published here, on the UI thread, so that a slower filtering can't replace a newer one
+        if (!cleared) lastFiltered = filtered;
+        ItemComparator<T> comparator = itemComparator != null ? itemComparator : BaseQuickAdapter.<T>equalityComparator();
+        submitDiff(filtered.items, comparator, new Runnable() {
+            @Override
+            public void run() {
+                if (cleared && unfilteredData == filtered.source) {
+                    unfilteredData = null;
+                    lastFiltered = null;
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The items of source matching the constraint, or null if a newer filtering started.
+     */
+    private List<T> filterItems(List<T> source, CharSequence constraint, int generation) {
+        if (constraint == null || constraint.length() == 0) return source;
+        String query = constraint.toString();
+        FilterPredicate<T> predicate = filterPredicate;
+        String lowerCaseQuery = query.toLowerCase();
+
+        // A longer constraint only matches a subset of the previous result
+        List<T> candidates = source;
+        FilteredItems<T> last = lastFiltered;
+        if (last != null && last.source == source && query.startsWith(last.constraint)) candidates = last.items;
+
+        List<T> items = new ArrayList<T>();
+        for (int i = 0, size = candidates.size(); i < size; i++) {
+            if ((i & 0xFF) == 0 && filterGeneration.get() != generation) return null;
+            T item = candidates.get(i);
+            boolean matches = predicate != null ? predicate.matches(item, constraint)
+                    : item != null && item.toString().toLowerCase().contains(lowerCaseQuery);
+            if (matches) items.add(item);
+        }
+        return items;
+    }
+
+    /**
+     * Coalesce the notifications of the mutation methods made during a frame into a
+     * single notifyDataSetChanged(), posted on the next frame. Must be used on the UI thread.
+     * @param notifyOnNextFrame True to notify once per frame, false to notify on each mutation.
+     */
+    public void setNotifyOnNextFrame(boolean notifyOnNextFrame) {
+        this.notifyOnNextFrame = notifyOnNextFrame;
+        if (!notifyOnNextFrame) flushPendingNotification();
+    }
+
+    private void onDataChanged() {
+        if (!notifyOnNextFrame) {
+            notifyDataSetChanged();
+            return;
+        }
+        dataVersion++;
+        if (notifyScheduled) return;
+        notifyScheduled = true;
+        if (frameNotifier == null) frameNotifier = FrameScheduler.create(frameNotification);
+        frameNotifier.schedule();
+    }
+
+    private void flushPendingNotification() {
+        if (notifyScheduled) notifyDataSetChanged();
+    }
+
+    /**
+     * Enable the skip-unchanged mode on the helpers of this adapter,
+     * see {@link BaseAdapterHelper#setSkipUnchanged(boolean)}.
+     * @param skipUnchanged True to leave views untouched when their value didn't change.
+     */
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    /**
+     * Make replaceAll() compute the difference between the current and the new items,
+     * so that it only converts again the rows whose content changed.
+     * @param itemComparator Tells which items are the same and whether their content changed,
+     *                       or null to rebind everything on replaceAll().
+     */
+    public void setItemComparator(ItemComparator<T> itemComparator) {
+        this.itemComparator = itemComparator;
+    }
+
+    /**
+     * Register a click listener for a view of the items.<br/>
+     * Unlike BaseAdapterHelper#setOnClickListener() called in convert(), a single
+     * listener is attached to each view when its row is created, and resolves the
+     * position and the item of the row when clicked, so binding allocates nothing.
+     * @param viewId   The id of the view in the item layout.
+     * @param listener The listener, or null to stop listening to this view.
+     */
+    public void setOnItemChildClickListener(int viewId, OnItemChildClickListener<T> listener) {
+        if (childClickListeners == null) {
+            childClickListeners = new SparseArray<OnItemChildClickListener<T>>();
+        }
+        if (listener == null) {
+            if (childClickListeners.get(viewId) == null) return;
+            childClickListeners.remove(viewId);
+        } else {
+            childClickListeners.put(viewId, listener);
+        }
+        childClickListenersVersion++;
+
+        // Update the visible rows, the others will be when bound again
+        AbsListView list = getAttachedList();
+        if (list == null) return;
+        for (int i = 0, count = list.getChildCount(); i < count; i++) {
+            Object tag = list.getChildAt(i).getTag();
+            if (!(tag instanceof BaseAdapterHelper)) continue;
+            ((BaseAdapterHelper) tag).attachClickDispatcher(childClickDispatcher, childClickListeners, childClickListenersVersion);
+        }
+    }
+
+    /**
+     * Measure the text of the upcoming items on a background thread, for the width and
+     * paint of a {@link MeasuredTextView} of the item layout, which then draws the measured
+     * layout when its text is set, instead of laying it out on the UI thread.
+     * See {@link TextMeasureCache}.
+     * @param viewId    The id of the MeasuredTextView in the item layout.
+     * @param extractor Returns the text the TextView will display for an item, or null to stop prefetching it.
+     * @param distance  The number of items to measure ahead of the last bound one.
+     */
+    public void setTextPrefetch(int viewId, TextExtractor<T> extractor, int distance) {
+        if (textExtractors == null) {
+            textExtractors = new SparseArray<TextExtractor<T>>();
+            textStyles = new SparseArray<TextMeasureCache.Style>();
+        }
+        if (extractor == null) {
+            textExtractors.remove(viewId);
+            textStyles.remove(viewId);
+            if (textExtractors.size() == 0) textExtractors = null;
+        } else {
+            textExtractors.put(viewId, extractor);
+            textStyles.remove(viewId);
+        }
+        textPrefetchDistance = distance;
+        textPrefetchWindow.reset();
+    }
+
+    /**
+     * Load the image of the upcoming items in the direction of the scroll, further ahead
+     * when scrolling fast, using the ImageLoader of the helpers. Prefetches that fall
+     * out of range are cancelled.
+     * @param viewId    The id of the ImageView in the item layout.
+     * @param extractor Returns the URL the ImageView will display for an item, or null to stop prefetching it.
+     * @param distance  The number of items to prefetch ahead of the last bound one, when scrolling slowly.
+     */
+    public void setImagePrefetch(int viewId, ImageUrlExtractor<T> extractor, int distance) {
+        if (imageUrlExtractors == null) {
+            imageUrlExtractors = new SparseArray<ImageUrlExtractor<T>>();
+            imagePrefetches = new SparseArray<String[]>();
+        }
+        if (extractor == null) {
+            imageUrlExtractors.remove(viewId);
+            if (imageUrlExtractors.size() == 0) imageUrlExtractors = null;
+        } else {
+            imageUrlExtractors.put(viewId, extractor);
+        }
+        imagePrefetches.clear();
+        imagePrefetchDistance = distance;
+        imagePrefetchWindow.reset();
+    }
+
+    /**
+     * Memoize the view-models of the items: each one is prepared on the UI thread
+     * the first time its item is bound, then reused until the item is replaced or removed.
+     * @param binder Prepares and applies the view-models, or null to always use convert().
+     * @param <VM>   The type of the view-models.
+     */
+    public <VM> void setViewModelBinder(ViewModelBinder<T, VM, H> binder) {
+        setViewModelBinder(binder, 0);
+    }
+
+    /**
+     * Bind the items in two phases: their view-model is prepared on a background thread
+     * for the items about to be displayed, then applied to the views on the UI thread.
+     * Items whose view-model isn't ready yet are given to convert().<br/>
+     * The view-models are cached by stable id if an ItemIdProvider is set, by item
+     * identity otherwise, and dropped when the item is replaced or removed.
+     * @param binder           Prepares and applies the view-models, or null to always use convert().
+     * @param prefetchDistance The number of items to prepare ahead of the last bound one,
+     *                         or 0 to prepare them on the UI thread when they are bound.
+     * @param <VM>             The type of the view-models.
+     */
+    @SuppressWarnings("unchecked")
+    public <VM> void setViewModelBinder(ViewModelBinder<T, VM, H> binder, int prefetchDistance) {
+        invalidateViewModels();
+        viewModelBinder = (ViewModelBinder<T, Object, H>) binder;
+        viewModelPrefetchDistance = prefetchDistance;
+        viewModelPrefetchWindow.reset();
+        viewModels.resetCounts();
+    }
+
+    /**
+     * Keep at most the given number of view-models, the least recently used are dropped. Default is 200.
+     */
+    public void setViewModelCacheSize(int maxSize) {
+        viewModels.setMaxWeight(maxSize, null);
+    }
+
+    /**
+     * Keep view-models up to the given total weight, the least recently used are dropped.
+     * @param maxWeight The maximum total weight of the view-models.
+     * @param weigher   Returns the weight of a view-model, e.g. an estimation of its memory size.
+     * @param <VM>      The type of the view-models.
+     */
+    @SuppressWarnings("unchecked")
+    public <VM> void setViewModelCacheSize(int maxWeight, ViewModelWeigher<VM> weigher) {
+        viewModels.setMaxWeight(maxWeight, (ViewModelWeigher<Object>) weigher);
+    }
+
+    /**
+     * Returns how many bound items had their view-model cached since the binder was set.
+     */
+    public int getViewModelHitCount() {
+        return viewModels.getHitCount();
+    }
+
+    /**
+     * Returns how many bound items had no view-model cached since the binder was set.
+     */
+    public int getViewModelMissCount() {
+        return viewModels.getMissCount();
+    }
+
+    /**
+     * Returns the ratio of bound items which had their view-model cached, between 0 and 1.
+     */
+    public float getViewModelHitRate() {
+        int lookups = viewModels.getHitCount() + viewModels.getMissCount();
+        return lookups == 0 ? 0f : (float) viewModels.getHitCount() / lookups;
+    }
+
+    @Override
+    public void notifyDataSetChanged() {
+        if (notifyScheduled) {
+            notifyScheduled = false;
+            frameNotifier.cancel();
+        }
+        notifiedSize = data.size();
+        notifiedFooter = hasFooter();
+        dataVersion++;
+        skipSameContent = false;
+        textPrefetchWindow.reset();
+        imagePrefetchWindow.reset();
+        viewModelPrefetchWindow.reset();
+        // Positions changed, let the pending prefetches complete
+        if (imagePrefetches != null) imagePrefetches.clear();
+        super.notifyDataSetChanged();
+    }
+
+    public void showIndeterminateProgress(boolean display) {
+        if (display == displayIndeterminateProgress) return;
+        displayIndeterminateProgress = display;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Implement this method and use the helper to adapt the view to the given item.
+     * @param helper A fully initialized helper.
+     * @param item   The item that needs to be displayed.
+     */
+    protected abstract void convert(H helper, T item);
+
+    /**
+     * Called instead of convert() for the items of a {@link PagedDataSource} not loaded yet.
+     * By default the row is hidden until its item is loaded.
+     * @param helper   A fully initialized helper.
+     * @param position The position of the item.
+     */
+    protected void convertPlaceholder(H helper, int position) {
+        helper.getView().setVisibility(View.INVISIBLE);
+    }
+
+    /**
+     * Called by {@link #notifyItemChanged(int, Object)} to update the row of an item still on screen.
+     * Override it to only update what the payloads describe, by default it calls convert(helper, item).
+     * @param helper   The helper of the row, currently displaying this item.
+     * @param item     The item that needs to be displayed.
+     * @param payloads The payload given to notifyItemChanged(), or an empty list.
+     */
+    protected void convert(H helper, T item, List<Object> payloads) {
+        convert(helper, item);
+    }
+
+    /**
+     * You can override this method to use a custom BaseAdapterHelper in order to fit your needs
+     * @param position    The position of the item within the adapter's data set of the item whose view we want.
+     * @param convertView The old view to reuse, if possible. Note: You should check that this view
+     *                    is non-null and of an appropriate type before using. If it is not possible to convert
+     *                    this view to display the correct data, this method can create a new view.
+     *                    Heterogeneous lists can specify their number of view types, so that this View is
+     *                    always of the right type (see {@link #getViewTypeCount()} and
+     *                    {@link #getItemViewType(int)}).
+     * @param parent      The parent that this view will eventually be attached to
+     * @return An instance of BaseAdapterHelper, for the layout {@link #getItemLayoutResId(int)}.
+     */
+    protected abstract H getAdapterHelper(int position, View convertView, ViewGroup parent);
+
+    private final class QuickFilter extends Filter {
+
+        @Override
+        protected FilterResults performFiltering(CharSequence constraint) {
+            int generation = filterGeneration.incrementAndGet();
+            requestedConstraint = constraint;
+            FilterResults results = new FilterResults();
+            List<T> source = getUnfilteredData();
+            List<T> items = source == null ? null : filterItems(source, constraint, generation);
+            if (items != null) {
+                results.values = new FilteredItems<T>(source, constraint, items, generation);
+                results.count = items.size();
+            }
+            return results;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        protected void publishResults(CharSequence constraint, FilterResults results) {
+            applyFiltered((FilteredItems<T>) results.values, constraint);
+        }
+    }
+
+    private static final class ItemType<T, H extends BaseAdapterHelper> {
+
+        final int layoutResId;
+
+        final ItemBinder<T, H> binder;
+
+        ItemType(int layoutResId, ItemBinder<T, H> binder) {
+            this.layoutResId = layoutResId;
+            this.binder = binder;
+        }
+    }
+
+    private static final class PendingViewModel<T> {
+
+        final T item;
+
+        PendingViewModel(T item) {
+            this.item = item;
+        }
+    }
+
+    private static final class FilteredItems<T> {
+
+        final List<T> source;
+
+        final String constraint;
+
+        final List<T> items;
+
+        final int generation;
+
+        FilteredItems(List<T> source, CharSequence constraint, List<T> items, int generation) {
+            this.source = source;
+            this.constraint = constraint == null ? null : constraint.toString();
+            this.items = items;
+            this.generation = generation;
+        }
+    }
+
+    private static final ItemComparator<Object> EQUALITY_COMPARATOR = new ItemComparator<Object>() {
+        @Override
+        public boolean areItemsTheSame(Object oldItem, Object newItem) {
+            return oldItem == null ? newItem == null : oldItem.equals(newItem);
+        }
+
+        @Override
+        public boolean areContentsTheSame(Object oldItem, Object newItem) {
+            return true;
+        }
+    };
+
+    @SuppressWarnings("unchecked")
+    private static <T> ItemComparator<T> equalityComparator() {
+        return (ItemComparator<T>) EQUALITY_COMPARATOR;
+    }
+
+    /**
+     * Interface definition for a callback invoked when the list gets close to its end.
+     * @param <T> The type of the items in the list.
+     */
+    public interface OnLoadMoreListener<T> {
+
+        /**
+         * Start loading the next items, then add them and call finishLoadMore(), or call failLoadMore().
+         * @param lastItem The last item of the list, or null if it's empty.
+         */
+        void onLoadMore(T lastItem);
+    }
+
+    /**
+     * Binds an item in two phases, see {@link #setViewModelBinder(ViewModelBinder, int)}.
+     * @param <T>  The type of the items in the list.
+     * @param <VM> The type of the view-models.
+     */
+    public interface ViewModelBinder<T, VM, H extends BaseAdapterHelper> {
+
+        /**
+         * Compute what the views will display for an item, e.g. formatted dates and spans.
+         * Called on a background thread.
+         */
+        VM prepare(T item);
+
+        /**
+         * Set the prepared values on the views, on the UI thread.
+         */
+        void apply(H helper, VM viewModel);
+    }
+
+    /**
+     * Weighs the cached view-models, see {@link #setViewModelCacheSize(int, ViewModelWeigher)}.
+     * @param <VM> The type of the view-models.
+     */
+    public interface ViewModelWeigher<VM> {
+
+        /**
+         * Returns the weight of a view-model, not negative.
+         */
+        int weightOf(VM viewModel);
+    }
+
+    /**
+     * Returns the key of the type of an item, see {@link #registerItemType(Object, int, ItemBinder)}.
+     * @param <T> The type of the items in the list.
+     */
+    public interface ItemTypeMapper<T> {
+
+        Object getItemType(T item);
+    }
+
+    /**
+     * Adapts the views of an item type to an item, like convert() does for the default type.
+     * @param <T> The type of the items in the list.
+     */
+    public interface ItemBinder<T, H extends BaseAdapterHelper> {
+
+        void convert(H helper, T item);
+    }
+
+    /**
+     * Tells whether an item matches the constraint of a filter. Called on a background thread.<br/>
+     * When the constraint is extended, only the items matching the previous one are tested again,
+     * so an item must not match a constraint if it doesn't match its prefixes.
+     * @param <T> The type of the items in the list.
+     */
+    public interface FilterPredicate<T> {
+
+        boolean matches(T item, CharSequence constraint);
+    }
+
+    /**
+     * Returns the text a TextView displays for an item.
+     * @param <T> The type of the items in the list.
+     */
+    public interface TextExtractor<T> {
+
+        CharSequence getText(T item);
+    }
+
+    /**
+     * Returns the URL of the image an ImageView displays for an item.
+     * @param <T> The type of the items in the list.
+     */
+    public interface ImageUrlExtractor<T> {
+
+        String getImageUrl(T item);
+    }
+
+    /**
+     * Returns the stable id of an item.
+     * @param <T> The type of the items in the list.
+     */
+    public interface ItemIdProvider<T> {
+
+        /**
+         * @return An id unique to this item, which doesn't change when the item is updated.
+         */
+        long getItemId(T item);
+    }
+
+    /**
+     * Interface definition for a callback invoked when a view of an item is clicked.
+     * @param <T> The type of the items in the list.
+     */
+    public interface OnItemChildClickListener<T> {
+
+        /**
+         * @param view     The view that was clicked.
+         * @param position The position of its item in the adapter.
+         * @param item     The item the row was bound to.
+         */
+        void onItemChildClick(View view, int position, T item);
+    }
 }
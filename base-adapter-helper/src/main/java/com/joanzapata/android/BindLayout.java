@@ -0,0 +1,46 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a class holding the views of a layout, so that a ViewBinder
+ * is generated for it at compile time.<br/>
+ * <br/>
+ * <b>Usage</b>
+ * <p/>
+ * <pre>
+ * &#64;BindLayout(R.layout.tweet)
+ * public class TweetViews {
+ *     &#64;BindView(R.id.tweetText) TextView tweetText;
+ *     &#64;BindView(R.id.tweetAvatar) ImageView tweetAvatar;
+ * }
+ * </pre>
+ * The annotated class must have a non private no-arg constructor.
+ * Once generated, {@link BaseAdapterHelper#getBinding()} returns a
+ * TweetViews instance for every helper inflated from R.layout.tweet.
+ */
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface BindLayout {
+
+    /** The layout resource id the annotated class describes. */
+    int value();
+}
@@ -0,0 +1,95 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.content.Context;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import static com.joanzapata.android.BaseAdapterHelper.get;
+
+/**
+ * Abstraction class of a BaseAdapter displaying the rows of a {@link ColumnarStore}, for
+ * very long lists of similar items. A single cursor is moved to the row being converted,
+ * so binding creates no object per row, and the strings don't have to be materialized
+ * if they are set with {@link BaseAdapterHelper#setText(int, char[], int, int)},
+ * TextView keeping its own copy of the characters:
+ * <pre>
+ * helper.setText(R.id.name, row.getChars(), row.getStringStart(NAME), row.getStringLength(NAME));
+ * </pre>
+ */
+public abstract class ColumnarQuickAdapter extends BaseAdapter {
+
+    protected final Context context;
+
+    protected final int layoutResId;
+
+    protected final ColumnarStore store;
+
+    private final ColumnarStore.Cursor cursor;
+
+    /**
+     * @param context     The context.
+     * @param layoutResId The layout resource id of each item.
+     * @param store       The rows to display. Call notifyDataSetChanged() after modifying it.
+     */
+    public ColumnarQuickAdapter(Context context, int layoutResId, ColumnarStore store) {
+        this.context = context;
+        this.layoutResId = layoutResId;
+        this.store = store;
+        this.cursor = store.newCursor();
+    }
+
+    @Override
+    public int getCount() {
+        return store.size();
+    }
+
+    /**
+     * @return A new cursor on the row, since the cursor given to convert() moves.
+     */
+    @Override
+    public ColumnarStore.Cursor getItem(int position) {
+        return store.newCursor().moveTo(position);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        BaseAdapterHelper helper = get(context, convertView, parent, layoutResId, position);
+        // Rows are identified by their position, the cursor being shared
+        helper.onRowBindStarted(position);
+        convert(helper, cursor.moveTo(position));
+        helper.onBindFinished();
+        return helper.getView();
+    }
+
+    public ColumnarStore getStore() {
+        return store;
+    }
+
+    /**
+     * Implement this method and use the helper to adapt the view to the given row.
+     * @param helper A fully initialized helper.
+     * @param row    The cursor on the row to display, only valid during this call.
+     */
+    protected abstract void convert(BaseAdapterHelper helper, ColumnarStore.Cursor row);
+}
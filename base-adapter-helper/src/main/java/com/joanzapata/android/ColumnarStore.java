@@ -0,0 +1,292 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import java.util.Arrays;
+
+/**
+ * Compact storage of rows of primitive and string values, one array per column.<br/>
+ * The characters of the strings are stored once in a single buffer, and identical
+ * strings share the same characters. Rows are read through a reusable {@link Cursor}.
+ */
+public final class ColumnarStore {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int size;
+
+    private int capacity;
+
+    private final int[][] ints;
+
+    private final long[][] longs;
+
+    private final double[][] doubles;
+
+    /**
+     * Id of the string of each cell, -1 for null
+     */
+    private final int[][] strings;
+
+    /**
+     * Characters of the distinct strings, and their position in the buffer by string id
+     */
+    private char[] chars = new char[256];
+
+    private int charCount;
+
+    private int[] stringStarts = new int[INITIAL_CAPACITY];
+
+    private int[] stringLengths = new int[INITIAL_CAPACITY];
+
+    private int stringCount;
+
+    /**
+     * Open addressing table of string ids + 1, by hash of their characters
+     */
+    private int[] internTable = new int[INITIAL_CAPACITY * 2];
+
+    /**
+     * @param intColumns    The number of int columns.
+     * @param longColumns   The number of long columns.
+     * @param doubleColumns The number of double columns.
+     * @param stringColumns The number of string columns.
+     */
+    public ColumnarStore(int intColumns, int longColumns, int doubleColumns, int stringColumns) {
+        capacity = INITIAL_CAPACITY;
+        ints = new int[intColumns][capacity];
+        longs = new long[longColumns][capacity];
+        doubles = new double[doubleColumns][capacity];
+        strings = new int[stringColumns][capacity];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Append a row, with zeros and null strings.
+     * @return The position of the row.
+     */
+    public int addRow() {
+        if (size == capacity) grow(capacity + (capacity >> 1));
+        for (int[] column : strings) column[size] = -1;
+        return size++;
+    }
+
+    /**
+     * Remove all the rows and strings.
+     */
+    public void clear() {
+        size = 0;
+        charCount = 0;
+        stringCount = 0;
+        Arrays.fill(internTable, 0);
+    }
+
+    public void setInt(int row, int column, int value) {
+        checkRow(row);
+        ints[column][row] = value;
+    }
+
+    public void setLong(int row, int column, long value) {
+        checkRow(row);
+        longs[column][row] = value;
+    }
+
+    public void setDouble(int row, int column, double value) {
+        checkRow(row);
+        doubles[column][row] = value;
+    }
+
+    /**
+     * Store a string, sharing the characters of an identical string already stored.
+     */
+    public void setString(int row, int column, CharSequence value) {
+        checkRow(row);
+        strings[column][row] = value == null ? -1 : intern(value);
+    }
+
+    /**
+     * @return A new cursor, which can be moved to any row.
+     */
+    public Cursor newCursor() {
+        return new Cursor();
+    }
+
+    private void checkRow(int row) {
+        if (row < 0 || row >= size) throw new IndexOutOfBoundsException("Row " + row + " out of [0, " + size + ")");
+    }
+
+    private void grow(int newCapacity) {
+        // Not Arrays.copyOf(), which only exists from API 9
+        for (int i = 0; i < ints.length; i++) {
+            int[] column = new int[newCapacity];
+            System.arraycopy(ints[i], 0, column, 0, size);
+            ints[i] = column;
+        }
+        for (int i = 0; i < longs.length; i++) {
+            long[] column = new long[newCapacity];
+            System.arraycopy(longs[i], 0, column, 0, size);
+            longs[i] = column;
+        }
+        for (int i = 0; i < doubles.length; i++) {
+            double[] column = new double[newCapacity];
+            System.arraycopy(doubles[i], 0, column, 0, size);
+            doubles[i] = column;
+        }
+        for (int i = 0; i < strings.length; i++) {
+            int[] column = new int[newCapacity];
+            System.arraycopy(strings[i], 0, column, 0, size);
+            strings[i] = column;
+        }
+        capacity = newCapacity;
+    }
+
+    private int intern(CharSequence value) {
+        int length = value.length();
+        int hash = 0;
+        for (int i = 0; i < length; i++) hash = 31 * hash + value.charAt(i);
+        int mask = internTable.length - 1;
+        int index = mix(hash) & mask;
+        while (internTable[index] != 0) {
+            int id = internTable[index] - 1;
+            if (contentEquals(id, value)) return id;
+            index = (index + 1) & mask;
+        }
+
+        // New string, append its characters
+        if (charCount + length > chars.length) {
+            char[] newChars = new char[Math.max(charCount + length, chars.length * 2)];
+            System.arraycopy(chars, 0, newChars, 0, charCount);
+            chars = newChars;
+        }
+        for (int i = 0; i < length; i++) chars[charCount + i] = value.charAt(i);
+        if (stringCount == stringStarts.length) {
+            int[] newStarts = new int[stringCount * 2];
+            int[] newLengths = new int[stringCount * 2];
+            System.arraycopy(stringStarts, 0, newStarts, 0, stringCount);
+            System.arraycopy(stringLengths, 0, newLengths, 0, stringCount);
+            stringStarts = newStarts;
+            stringLengths = newLengths;
+        }
+        int id = stringCount++;
+        stringStarts[id] = charCount;
+        stringLengths[id] = length;
+        charCount += length;
+        internTable[index] = id + 1;
+        if (stringCount * 2 > internTable.length) rehash();
+        return id;
+    }
+
+    private boolean contentEquals(int id, CharSequence value) {
+        int length = stringLengths[id];
+        if (length != value.length()) return false;
+        int start = stringStarts[id];
+        for (int i = 0; i < length; i++) {
+            if (chars[start + i] != value.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private void rehash() {
+        internTable = new int[internTable.length * 2];
+        int mask = internTable.length - 1;
+        for (int id = 0; id < stringCount; id++) {
+            int hash = 0;
+            for (int i = stringStarts[id], end = i + stringLengths[id]; i < end; i++) hash = 31 * hash + chars[i];
+            int index = mix(hash) & mask;
+            while (internTable[index] != 0) index = (index + 1) & mask;
+            internTable[index] = id + 1;
+        }
+    }
+
+    private static int mix(int hash) {
+        hash ^= (hash >>> 20) ^ (hash >>> 12);
+        return hash ^ (hash >>> 7) ^ (hash >>> 4);
+    }
+
+    /**
+     * Flyweight view of a row of the store, moved from row to row instead of allocating an object per row.
+     */
+    public final class Cursor {
+
+        private int row;
+
+        private Cursor() {
+        }
+
+        /**
+         * @return This cursor, now reading the given row.
+         */
+        public Cursor moveTo(int row) {
+            checkRow(row);
+            this.row = row;
+            return this;
+        }
+
+        public int getPosition() {
+            return row;
+        }
+
+        public int getInt(int column) {
+            return ints[column][row];
+        }
+
+        public long getLong(int column) {
+            return longs[column][row];
+        }
+
+        public double getDouble(int column) {
+            return doubles[column][row];
+        }
+
+        public boolean isNull(int stringColumn) {
+            return strings[stringColumn][row] == -1;
+        }
+
+        /**
+         * @return A new String, prefer {@link #getChars()} to avoid the allocation.
+         */
+        public String getString(int column) {
+            int id = strings[column][row];
+            return id == -1 ? null : new String(chars, stringStarts[id], stringLengths[id]);
+        }
+
+        /**
+         * @return The buffer holding the characters of all the strings, valid until the next string is stored.
+         */
+        public char[] getChars() {
+            return chars;
+        }
+
+        /**
+         * @return The position of the string of the column in {@link #getChars()}.
+         */
+        public int getStringStart(int column) {
+            int id = strings[column][row];
+            return id == -1 ? 0 : stringStarts[id];
+        }
+
+        /**
+         * @return The length of the string of the column, 0 if null.
+         */
+        public int getStringLength(int column) {
+            int id = strings[column][row];
+            return id == -1 ? 0 : stringLengths[id];
+        }
+    }
+}
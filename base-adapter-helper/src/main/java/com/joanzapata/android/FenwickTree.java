@@ -0,0 +1,72 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+/**
+ * Binary indexed tree of int values, giving prefix sums and updates in O(log n).
+ */
+final class FenwickTree {
+
+    /**
+     * 1-based, tree[i] holds the sum of the values (i - lowestOneBit(i), i]
+     */
+    private final int[] tree;
+
+    private final int size;
+
+    FenwickTree(int[] values, int size) {
+        this.size = size;
+        tree = new int[size + 1];
+        for (int i = 1; i <= size; i++) {
+            tree[i] += values[i - 1];
+            int parent = i + (i & -i);
+            if (parent <= size) tree[parent] += tree[i];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    void add(int index, int delta) {
+        for (int i = index + 1; i <= size; i += i & -i) tree[i] += delta;
+    }
+
+    /**
+     * @return The sum of the first count values.
+     */
+    int prefixSum(int count) {
+        int sum = 0;
+        for (int i = count; i > 0; i -= i & -i) sum += tree[i];
+        return sum;
+    }
+
+    /**
+     * Values being lengths of consecutive ranges, find the range containing an offset.
+     * Requires positive values.
+     * @return The index of the value whose range contains offset, size if offset is past the end.
+     */
+    int indexOf(int offset) {
+        int index = 0;
+        for (int step = Integer.highestOneBit(Math.max(size, 1)); step > 0; step >>= 1) {
+            if (index + step <= size && tree[index + step] <= offset) {
+                index += step;
+                offset -= tree[index];
+            }
+        }
+        return index;
+    }
+}
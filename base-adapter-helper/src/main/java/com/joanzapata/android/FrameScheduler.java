@@ -0,0 +1,84 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.os.Build;
+import android.view.Choreographer;
+
+/**
+ * Runs a task once on the next frame, with the Choreographer on Jelly Bean and later,
+ * or posted to the UI thread before. The Choreographer classes are only loaded on Jelly Bean.
+ * Must be used on the UI thread.
+ */
+abstract class FrameScheduler {
+
+    protected final Runnable task;
+
+    private FrameScheduler(Runnable task) {
+        this.task = task;
+    }
+
+    static FrameScheduler create(Runnable task) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) return new ChoreographerScheduler(task);
+        return new HandlerScheduler(task);
+    }
+
+    /**
+     * Run the task on the next frame. Must not be called again before it ran or was cancelled.
+     */
+    abstract void schedule();
+
+    abstract void cancel();
+
+    private static final class ChoreographerScheduler extends FrameScheduler implements Choreographer.FrameCallback {
+
+        ChoreographerScheduler(Runnable task) {
+            super(task);
+        }
+
+        @Override
+        void schedule() {
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+
+        @Override
+        void cancel() {
+            Choreographer.getInstance().removeFrameCallback(this);
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            task.run();
+        }
+    }
+
+    private static final class HandlerScheduler extends FrameScheduler {
+
+        HandlerScheduler(Runnable task) {
+            super(task);
+        }
+
+        @Override
+        void schedule() {
+            AdapterExecutors.MAIN.post(task);
+        }
+
+        @Override
+        void cancel() {
+            AdapterExecutors.MAIN.removeCallbacks(task);
+        }
+    }
+}
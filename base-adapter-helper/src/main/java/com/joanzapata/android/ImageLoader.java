@@ -0,0 +1,55 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.widget.ImageView;
+
+/**
+ * Loads images from URLs into ImageViews for BaseAdapterHelper#setImageUrl().<br/>
+ * The default implementation is {@link PicassoImageLoader}, another one can be
+ * given to {@link BaseAdapterHelper#setDefaultImageLoader(ImageLoader)}.
+ */
+public interface ImageLoader {
+
+    /**
+     * Load an image into a view, replacing any request pending for this view.
+     * @param view   The target view.
+     * @param url    The image URL, may be null to clear the view.
+     * @param width  The width to decode the image at, or 0 if unknown.
+     * @param height The height to decode the image at, or 0 if unknown.
+     */
+    void load(ImageView view, String url, int width, int height);
+
+    /**
+     * Cancel the request pending for a view, if any.
+     */
+    void cancel(ImageView view);
+
+    /**
+     * Load an image into the cache, so that a later call to {@link #load(ImageView, String, int, int)}
+     * with the same arguments displays it immediately.
+     * @param url       The image URL.
+     * @param width     The width the image will be displayed at, or 0 if unknown.
+     * @param height    The height the image will be displayed at, or 0 if unknown.
+     * @param scaleType The scale type of the views it will be displayed in.
+     */
+    void prefetch(String url, int width, int height, ImageView.ScaleType scaleType);
+
+    /**
+     * Cancel the prefetch of an image, if it is still pending.
+     */
+    void cancelPrefetch(String url);
+}
@@ -0,0 +1,35 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+/**
+ * Tells how two versions of a list of items relate, so that an adapter
+ * can only rebind the rows that actually changed.
+ * @param <T> The type of the items in the list.
+ */
+public interface ItemComparator<T> {
+
+    /**
+     * @return true if both items represent the same entity, e.g. have the same server id.
+     */
+    boolean areItemsTheSame(T oldItem, T newItem);
+
+    /**
+     * Only called for items that are the same entity.
+     * @return true if the row of oldItem would display newItem the same way.
+     */
+    boolean areContentsTheSame(T oldItem, T newItem);
+}
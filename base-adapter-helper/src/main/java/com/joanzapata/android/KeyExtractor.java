@@ -0,0 +1,29 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+/**
+ * Returns the key identifying an item, e.g. its server id, used
+ * by the adapters to find items without scanning their list.
+ * @param <T> The type of the items in the list.
+ */
+public interface KeyExtractor<T> {
+
+    /**
+     * @return A key with consistent equals() and hashCode(), unique in the list.
+     */
+    Object getKey(T item);
+}
@@ -0,0 +1,211 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Hash index of the first position of the items of an adapter, by item or by key.<br/>
+ * Appending, replacing, inserting and removing single items keep it up to date in
+ * constant time: the positions after an insertion or a removal are shifted lazily,
+ * when they are looked up. Every {@link #MAX_SHIFTS} insertions or removals in the
+ * middle of the list, and after any other change, it's rebuilt in O(n) on the next lookup.
+ * Replacing or removing the first of several items with the same key looks for the
+ * next one from there.
+ * @param <T> The type of the items in the list.
+ */
+final class KeyIndex<T> {
+
+    static final int MAX_SHIFTS = 64;
+
+    /**
+     * Extracts the keys, null to index the items themselves
+     */
+    private final KeyExtractor<T> keyExtractor;
+
+    private final Map<Object, Entry> entries = new HashMap<Object, Entry>();
+
+    private boolean valid;
+
+    /**
+     * Insertions and removals not applied to the entries yet: the positions from
+     * shiftFrom[i] moved by shiftBy[i]
+     */
+    private final int[] shiftFrom = new int[MAX_SHIFTS];
+
+    private final int[] shiftBy = new int[MAX_SHIFTS];
+
+    private int shiftCount;
+
+    KeyIndex(KeyExtractor<T> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * @return The position of the item with the same key as elem, or -1.
+     */
+    int indexOf(List<T> data, T elem) {
+        if (elem == null) return data.indexOf(null);
+        return indexOfKey(data, key(elem));
+    }
+
+    /**
+     * @return The first position of an item with this key, or -1.
+     */
+    int indexOfKey(List<T> data, Object key) {
+        if (!valid) rebuild(data);
+        Entry entry = entries.get(key);
+        return entry == null ? -1 : positionOf(entry);
+    }
+
+    /**
+     * Called after an item was inserted at the given position.
+     */
+    void onAdded(List<T> data, int position, T item) {
+        if (!valid) return;
+        if (position != data.size() - 1 && !shift(position, 1)) return;
+        if (item == null) return;
+        Object key = key(item);
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            entries.put(key, new Entry(position, shiftCount));
+            return;
+        }
+        entry.count++;
+        if (positionOf(entry) > position) entry.moveTo(position, shiftCount);
+    }
+
+    void onSet(List<T> data, int position, T oldItem, T newItem) {
+        if (!valid) return;
+        if (oldItem != null) onDropped(data, position, key(oldItem), position + 1);
+        if (newItem != null) {
+            Object newKey = key(newItem);
+            Entry entry = entries.get(newKey);
+            if (entry == null) {
+                entries.put(newKey, new Entry(position, shiftCount));
+                return;
+            }
+            entry.count++;
+            if (positionOf(entry) > position) entry.moveTo(position, shiftCount);
+        }
+    }
+
+    /**
+     * Called after an item was removed from the given position.
+     */
+    void onRemoved(List<T> data, int position, T item) {
+        if (!valid) return;
+        if (position != data.size() && !shift(position + 1, -1)) return;
+        // The next items moved to position
+        if (item != null) onDropped(data, position, key(item), position);
+    }
+
+    void invalidate() {
+        valid = false;
+    }
+
+    /**
+     * Forget an occurrence of a key at the given position. If it was the first one,
+     * look for the next one in the list from the given position.
+     */
+    private void onDropped(List<T> data, int position, Object key, int from) {
+        Entry entry = entries.get(key);
+        if (entry == null) return;
+        if (--entry.count == 0) {
+            entries.remove(key);
+        } else if (positionOf(entry) == position) {
+            for (int i = from, size = data.size(); i < size; i++) {
+                T item = data.get(i);
+                if (item != null && key.equals(key(item))) {
+                    entry.moveTo(i, shiftCount);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Record that the positions from the given one moved, or invalidate the index if too many did.
+     * @return false if the index was invalidated.
+     */
+    private boolean shift(int from, int by) {
+        if (shiftCount == MAX_SHIFTS) {
+            invalidate();
+            return false;
+        }
+        shiftFrom[shiftCount] = from;
+        shiftBy[shiftCount] = by;
+        shiftCount++;
+        return true;
+    }
+
+    /**
+     * Apply the shifts recorded since the entry was last updated.
+     */
+    private int positionOf(Entry entry) {
+        int position = entry.position;
+        for (int i = entry.shifts; i < shiftCount; i++) {
+            if (position >= shiftFrom[i]) position += shiftBy[i];
+        }
+        entry.moveTo(position, shiftCount);
+        return position;
+    }
+
+    private void rebuild(List<T> data) {
+        entries.clear();
+        shiftCount = 0;
+        for (int i = 0, size = data.size(); i < size; i++) {
+            T item = data.get(i);
+            if (item == null) continue;
+            Object key = key(item);
+            Entry entry = entries.get(key);
+            if (entry == null) entries.put(key, new Entry(i, 0));
+            else entry.count++;
+        }
+        valid = true;
+    }
+
+    private Object key(T item) {
+        return keyExtractor == null ? item : keyExtractor.getKey(item);
+    }
+
+    private static final class Entry {
+
+        /**
+         * First position of the key, before the shifts from index shifts on
+         */
+        int position;
+
+        int shifts;
+
+        /**
+         * Number of items with the key
+         */
+        int count = 1;
+
+        Entry(int position, int shifts) {
+            this.position = position;
+            this.shifts = shifts;
+        }
+
+        void moveTo(int position, int shifts) {
+            this.position = position;
+            this.shifts = shifts;
+        }
+    }
+}
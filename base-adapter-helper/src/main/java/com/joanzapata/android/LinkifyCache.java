@@ -0,0 +1,197 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.support.v4.util.LruCache;
+import android.text.NoCopySpan;
+import android.text.SpannableString;
+import android.text.Spanned;
+import android.text.SpannedString;
+import android.text.method.LinkMovementMethod;
+import android.text.method.MovementMethod;
+import android.text.style.URLSpan;
+import android.text.util.Linkify;
+import android.widget.TextView;
+
+/**
+ * Bounded LRU cache of the links found by {@link Linkify} in a text, so that
+ * BaseAdapterHelper#linkify() doesn't run the Linkify patterns again each
+ * time a row is bound to the same text.<br/>
+ * Links can also be computed ahead of time on a background thread with
+ * {@link #prefetch(CharSequence, int)}, except map addresses, which are only
+ * looked for on the UI thread and added to the links found in background.<br/>
+ * The cache only holds plain texts: texts with spans of their own, e.g. styles,
+ * are linkified in place on each call so that their spans are kept.
+ */
+public final class LinkifyCache {
+
+    public static final int DEFAULT_MAX_SIZE = 200;
+
+    private static final LinkifyCache INSTANCE = new LinkifyCache(DEFAULT_MAX_SIZE);
+
+    /**
+     * Cached for texts without any link, so they are not scanned again
+     */
+    private static final Spanned NO_LINKS = new SpannedString("");
+
+    private volatile LruCache<Key, Spanned> cache;
+
+    private LinkifyCache(int maxSize) {
+        cache = new LruCache<Key, Spanned>(maxSize);
+    }
+
+    public static LinkifyCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Add links to the text of a TextView, using the cached links if any.
+     * @param view The TextView.
+     * @param mask The Linkify mask, e.g. Linkify.ALL.
+     */
+    public void linkify(TextView view, int mask) {
+        CharSequence text = view.getText();
+        if (hasOwnSpans(text)) {
+            Linkify.addLinks(view, mask);
+            return;
+        }
+        Spanned linkified = get(text, mask);
+        // Already linkified by a previous bind
+        if (linkified == NO_LINKS || linkified == text) return;
+        view.setText(linkified);
+        MovementMethod movementMethod = view.getMovementMethod();
+        if (!(movementMethod instanceof LinkMovementMethod) && view.getLinksClickable()) {
+            view.setMovementMethod(LinkMovementMethod.getInstance());
+        }
+    }
+
+    /**
+     * Compute the links of a text on a background thread, so that a later call
+     * to {@link #linkify(TextView, int)} with the same text finds them in cache.<br/>
+     * Only web urls, email addresses and phone numbers can be found outside of the UI thread:
+     * for a mask including Linkify.MAP_ADDRESSES, e.g. Linkify.ALL, the other links are
+     * prefetched, and linkify() only looks for the addresses. Nothing is prefetched
+     * for a text with spans of its own.
+     */
+    public void prefetch(final CharSequence text, int mask) {
+        final int backgroundMask = mask & ~Linkify.MAP_ADDRESSES;
+        if (text == null || backgroundMask == 0 || hasOwnSpans(text)) return;
+        String string = text.toString();
+        if (cache.get(new Key(string, backgroundMask)) != null || cache.get(new Key(string, mask)) != null) return;
+        AdapterExecutors.BACKGROUND.execute(new Runnable() {
+            @Override
+            public void run() {
+                get(text, backgroundMask);
+            }
+        });
+    }
+
+    /**
+     * Change the maximum number of texts kept in cache. This drops the cached links.
+     */
+    public void setMaxSize(int maxSize) {
+        cache = new LruCache<Key, Spanned>(maxSize);
+    }
+
+    public int maxSize() {
+        return cache.maxSize();
+    }
+
+    public void evictAll() {
+        cache.evictAll();
+    }
+
+    public int hitCount() {
+        return cache.hitCount();
+    }
+
+    public int missCount() {
+        return cache.missCount();
+    }
+
+    /**
+     * Whether the text has spans other than links, which the cache would lose.
+     * Links are found again, and the selection spans of LinkMovementMethod don't matter.
+     */
+    private static boolean hasOwnSpans(CharSequence text) {
+        if (!(text instanceof Spanned)) return false;
+        Object[] spans = ((Spanned) text).getSpans(0, text.length(), Object.class);
+        for (Object span : spans) {
+            if (!(span instanceof URLSpan) && !(span instanceof NoCopySpan)) return true;
+        }
+        return false;
+    }
+
+    private Spanned get(CharSequence text, int mask) {
+        Key key = new Key(text.toString(), mask);
+        Spanned linkified = cache.get(key);
+        if (linkified != null) return linkified;
+        int backgroundMask = mask & ~Linkify.MAP_ADDRESSES;
+        if (backgroundMask != mask) {
+            // The other links may have been prefetched
+            linkified = addAddresses(key.text, backgroundMask == 0 ? NO_LINKS : get(text, backgroundMask));
+        } else {
+            SpannableString spannable = new SpannableString(key.text);
+            // Immutable copy, so the same instance can be set on several TextViews
+            linkified = Linkify.addLinks(spannable, mask) ? new SpannedString(spannable) : NO_LINKS;
+        }
+        cache.put(key, linkified);
+        return linkified;
+    }
+
+    /**
+     * Add the map addresses of a text to its other links, which win where they overlap.
+     * Linkify.addLinks() can't do it, since it removes the links already in the text.
+     */
+    private static Spanned addAddresses(String text, Spanned links) {
+        SpannableString addresses = new SpannableString(text);
+        if (!Linkify.addLinks(addresses, Linkify.MAP_ADDRESSES)) return links;
+        SpannableString merged = new SpannableString(links == NO_LINKS ? text : links);
+        for (URLSpan span : addresses.getSpans(0, text.length(), URLSpan.class)) {
+            int start = addresses.getSpanStart(span);
+            int end = addresses.getSpanEnd(span);
+            if (merged.getSpans(start, end, URLSpan.class).length == 0) {
+                merged.setSpan(span, start, end, Spanned.SPAN_EXCLUSIVE_EXCLUSIVE);
+            }
+        }
+        return new SpannedString(merged);
+    }
+
+    private static final class Key {
+
+        final String text;
+
+        final int mask;
+
+        Key(String text, int mask) {
+            this.text = text;
+            this.mask = mask;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return mask == key.mask && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * text.hashCode() + mask;
+        }
+    }
+}
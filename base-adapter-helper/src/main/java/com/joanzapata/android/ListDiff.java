@@ -0,0 +1,173 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Difference between two lists, computed with Myers' algorithm on the items that are
+ * the same entity according to an {@link ItemComparator}.<br/>
+ * Common prefix and suffix are skipped first. When the lists differ by more than
+ * {@link #MAX_EDITS} insertions and removals, the diff gives up and reports the
+ * lists as unrelated rather than using quadratic memory.
+ */
+final class ListDiff {
+
+    static final int MAX_EDITS = 512;
+
+    /**
+     * Position in the new list of each item of the old list, or -1 if it was removed
+     */
+    final int[] oldToNew;
+
+    final int oldSize;
+
+    final int newSize;
+
+    /**
+     * Number of items present in both lists
+     */
+    final int matchCount;
+
+    /**
+     * Number of items present in both lists whose content changed
+     */
+    final int changeCount;
+
+    private ListDiff(int[] oldToNew, int newSize, int matchCount, int changeCount) {
+        this.oldToNew = oldToNew;
+        this.oldSize = oldToNew.length;
+        this.newSize = newSize;
+        this.matchCount = matchCount;
+        this.changeCount = changeCount;
+    }
+
+    /**
+     * @return true if items were inserted, removed or moved.
+     */
+    boolean isStructureChanged() {
+        return matchCount != oldSize || matchCount != newSize;
+    }
+
+    /**
+     * @return true if the new list displays exactly like the old one.
+     */
+    boolean isEmpty() {
+        return !isStructureChanged() && changeCount == 0;
+    }
+
+    /**
+     * @return The new position of the first item at or after oldPosition which is still in the list, or -1.
+     */
+    int newPositionOf(int oldPosition) {
+        for (int i = Math.max(oldPosition, 0); i < oldSize; i++) {
+            if (oldToNew[i] != -1) return oldToNew[i];
+        }
+        return -1;
+    }
+
+    static <T> ListDiff compute(List<T> oldList, List<T> newList, ItemComparator<T> comparator) {
+        int oldSize = oldList.size();
+        int newSize = newList.size();
+        int[] oldToNew = new int[oldSize];
+        for (int i = 0; i < oldSize; i++) oldToNew[i] = -1;
+
+        // Skip common prefix and suffix
+        int start = 0;
+        while (start < oldSize && start < newSize && comparator.areItemsTheSame(oldList.get(start), newList.get(start))) {
+            oldToNew[start] = start;
+            start++;
+        }
+        int oldEnd = oldSize;
+        int newEnd = newSize;
+        while (oldEnd > start && newEnd > start
+                && comparator.areItemsTheSame(oldList.get(oldEnd - 1), newList.get(newEnd - 1))) {
+            oldToNew[--oldEnd] = --newEnd;
+        }
+
+        if (!matchMiddle(oldList, newList, comparator, start, oldEnd, newEnd, oldToNew)) {
+            // Too different, consider nothing in the middle matched
+            for (int i = start; i < oldEnd; i++) oldToNew[i] = -1;
+        }
+
+        int matchCount = 0;
+        int changeCount = 0;
+        for (int i = 0; i < oldSize; i++) {
+            if (oldToNew[i] == -1) continue;
+            matchCount++;
+            if (!comparator.areContentsTheSame(oldList.get(i), newList.get(oldToNew[i]))) changeCount++;
+        }
+        return new ListDiff(oldToNew, newSize, matchCount, changeCount);
+    }
+
+    /**
+     * Myers' greedy algorithm on old[start, oldEnd) and new[start, newEnd), keeping the
+     * furthest reaching paths of each round for the backtracking.
+     * @return false if the lists differ by more than MAX_EDITS.
+     */
+    private static <T> boolean matchMiddle(List<T> oldList, List<T> newList, ItemComparator<T> comparator,
+                                           int start, int oldEnd, int newEnd, int[] oldToNew) {
+        int n = oldEnd - start;
+        int m = newEnd - start;
+        if (n == 0 || m == 0) return true;
+
+        int maxEdits = Math.min(n + m, MAX_EDITS);
+        int offset = maxEdits + 1;
+        int[] v = new int[2 * offset + 1];
+        List<int[]> trace = new ArrayList<int[]>();
+
+        for (int d = 0; d <= maxEdits; d++) {
+            int[] snapshot = new int[2 * d + 1];
+            System.arraycopy(v, offset - d, snapshot, 0, snapshot.length);
+            trace.add(snapshot);
+            for (int k = -d; k <= d; k += 2) {
+                int x = k == -d || (k != d && v[offset + k - 1] < v[offset + k + 1])
+                        ? v[offset + k + 1] : v[offset + k - 1] + 1;
+                int y = x - k;
+                while (x < n && y < m && comparator.areItemsTheSame(oldList.get(start + x), newList.get(start + y))) {
+                    x++;
+                    y++;
+                }
+                v[offset + k] = x;
+                if (x >= n && y >= m) {
+                    backtrack(trace, n, m, start, oldToNew);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static void backtrack(List<int[]> trace, int x, int y, int start, int[] oldToNew) {
+        for (int d = trace.size() - 1; d >= 0; d--) {
+            int[] v = trace.get(d);
+            int k = x - y;
+            // v holds the paths of round d - 1, indexed from -d
+            int previousK = k == -d || (k != d && v[k - 1 + d] < v[k + 1 + d]) ? k + 1 : k - 1;
+            int previousX = d == 0 ? 0 : v[previousK + d];
+            int previousY = previousX - previousK;
+            if (d == 0) previousY = 0;
+            while (x > previousX && y > previousY) {
+                x--;
+                y--;
+                oldToNew[start + x] = start + y;
+            }
+            x = previousX;
+            y = previousY;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+/**
+ * State of the load more of a BaseQuickAdapter, one of its LOAD_MORE_* constants.<br/>
+ * The adapter calls the listener and notifies the list, this class only decides
+ * the transitions, so that they don't depend on Android.
+ */
+final class LoadMoreState {
+
+    private int state = BaseQuickAdapter.LOAD_MORE_IDLE;
+
+    /**
+     * Whether a listener is set to load the items
+     */
+    private boolean enabled;
+
+    private int prefetchDistance;
+
+    int get() {
+        return state;
+    }
+
+    /**
+     * @return true if the listener should be called, i.e. the items are loading and there is a listener.
+     */
+    boolean isLoading() {
+        return enabled && state == BaseQuickAdapter.LOAD_MORE_LOADING;
+    }
+
+    /**
+     * @return true if a listener is set or the state is not idle, i.e. there is something to reset.
+     */
+    boolean isActive() {
+        return enabled || state != BaseQuickAdapter.LOAD_MORE_IDLE;
+    }
+
+    /**
+     * @param prefetchDistance The number of items after the displayed one under which loading starts.
+     */
+    void enable(int prefetchDistance) {
+        this.enabled = true;
+        this.prefetchDistance = prefetchDistance;
+    }
+
+    /**
+     * Never start loading again, the state is left as is until {@link #reset()}.
+     */
+    void disable() {
+        enabled = false;
+    }
+
+    /**
+     * Start loading if the list is empty, since no item will be displayed to trigger it.
+     * @return true if loading started.
+     */
+    boolean startIfEmpty(boolean empty) {
+        if (!enabled || !empty || state != BaseQuickAdapter.LOAD_MORE_IDLE) return false;
+        state = BaseQuickAdapter.LOAD_MORE_LOADING;
+        return true;
+    }
+
+    /**
+     * Start loading if the displayed item is close enough to the end of the list.
+     * @return true if loading started.
+     */
+    boolean onDisplayed(int position, int size) {
+        if (!enabled || state != BaseQuickAdapter.LOAD_MORE_IDLE || position < size - 1 - prefetchDistance) return false;
+        state = BaseQuickAdapter.LOAD_MORE_LOADING;
+        return true;
+    }
+
+    /**
+     * @return true if the state changed, false if nothing was loading.
+     */
+    boolean finish(boolean exhausted) {
+        if (state != BaseQuickAdapter.LOAD_MORE_LOADING) return false;
+        state = exhausted ? BaseQuickAdapter.LOAD_MORE_EXHAUSTED : BaseQuickAdapter.LOAD_MORE_IDLE;
+        return true;
+    }
+
+    /**
+     * @return true if the state changed, false if nothing was loading.
+     */
+    boolean fail() {
+        if (state != BaseQuickAdapter.LOAD_MORE_LOADING) return false;
+        state = BaseQuickAdapter.LOAD_MORE_ERROR;
+        return true;
+    }
+
+    /**
+     * @return true if loading started again after a failure.
+     */
+    boolean retry() {
+        if (!enabled || state != BaseQuickAdapter.LOAD_MORE_ERROR) return false;
+        state = BaseQuickAdapter.LOAD_MORE_LOADING;
+        return true;
+    }
+
+    void reset() {
+        state = BaseQuickAdapter.LOAD_MORE_IDLE;
+    }
+
+    /**
+     * @param hasEndText Whether a text is displayed once exhausted.
+     * @return true if the end of the list shows a progress, a retry text or an end text.
+     */
+    boolean hasFooter(boolean hasEndText) {
+        return state == BaseQuickAdapter.LOAD_MORE_LOADING || state == BaseQuickAdapter.LOAD_MORE_ERROR
+                || state == BaseQuickAdapter.LOAD_MORE_EXHAUSTED && hasEndText;
+    }
+}
@@ -0,0 +1,188 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.content.Context;
+import android.content.res.TypedArray;
+import android.graphics.Canvas;
+import android.graphics.Color;
+import android.graphics.Paint;
+import android.graphics.Typeface;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+import android.util.AttributeSet;
+import android.util.TypedValue;
+import android.view.View;
+
+/**
+ * A view drawing a text through a StaticLayout taken from the {@link TextMeasureCache},
+ * so that a text measured ahead of time on a background thread is displayed without
+ * being laid out again on the UI thread. Texts that were not measured ahead of time
+ * are laid out when set, and cached.<br/>
+ * It reads android:textSize and android:textColor from its XML attributes. Set its
+ * text with {@link BaseAdapterHelper#setText(int, String)}, and see
+ * {@link BaseQuickAdapter#setTextPrefetch(int, BaseQuickAdapter.TextExtractor, int)}.
+ */
+public class MeasuredTextView extends View {
+
+    /**
+     * Sorted by attribute id, as obtainStyledAttributes() requires
+     */
+    private static final int[] ATTRS = {android.R.attr.textSize, android.R.attr.textColor};
+
+    private static final float DEFAULT_TEXT_SIZE_SP = 14;
+
+    private final TextPaint paint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+
+    private float spacingMultiplier = 1f;
+
+    private float spacingAddition = 0f;
+
+    private CharSequence text = "";
+
+    private StaticLayout layout;
+
+    /**
+     * Whether the width was imposed by the parent at the last measure, so that a new text can't change it
+     */
+    private boolean exactWidth;
+
+    /**
+     * Style of the last measure, reused while the width and the paint don't change
+     */
+    private TextMeasureCache.Style style;
+
+    public MeasuredTextView(Context context) {
+        this(context, null);
+    }
+
+    public MeasuredTextView(Context context, AttributeSet attrs) {
+        this(context, attrs, 0);
+    }
+
+    public MeasuredTextView(Context context, AttributeSet attrs, int defStyle) {
+        super(context, attrs, defStyle);
+        paint.density = getResources().getDisplayMetrics().density;
+        TypedArray a = context.obtainStyledAttributes(attrs, ATTRS, defStyle, 0);
+        paint.setTextSize(a.getDimension(0, TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP,
+                DEFAULT_TEXT_SIZE_SP, getResources().getDisplayMetrics())));
+        paint.setColor(a.getColor(1, Color.BLACK));
+        a.recycle();
+    }
+
+    /**
+     * Display a text, with the layout measured ahead of time if any. The view is only
+     * laid out again if the height of the text changes.
+     */
+    public void setText(CharSequence text) {
+        this.text = text == null ? "" : text;
+        TextMeasureCache.Style style = getTextStyle();
+        if (style == null) {
+            // Not laid out yet, onMeasure() will do it
+            layout = null;
+            requestLayout();
+        } else {
+            int oldHeight = layout == null ? -1 : layout.getHeight();
+            layout = TextMeasureCache.getInstance().obtain(this.text, style);
+            if (!exactWidth || layout.getHeight() != oldHeight) requestLayout();
+        }
+        invalidate();
+    }
+
+    public CharSequence getText() {
+        return text;
+    }
+
+    /**
+     * @param size The text size, in pixels.
+     */
+    public void setTextSize(float size) {
+        paint.setTextSize(size);
+        onStyleChanged();
+    }
+
+    public void setTextColor(int color) {
+        paint.setColor(color);
+        onStyleChanged();
+    }
+
+    public void setTypeface(Typeface typeface) {
+        paint.setTypeface(typeface);
+        onStyleChanged();
+    }
+
+    /**
+     * Same as {@link android.widget.TextView#setLineSpacing(float, float)}.
+     */
+    public void setLineSpacing(float add, float multiplier) {
+        spacingAddition = add;
+        spacingMultiplier = multiplier;
+        onStyleChanged();
+    }
+
+    private void onStyleChanged() {
+        style = null;
+        layout = null;
+        requestLayout();
+        invalidate();
+    }
+
+    /**
+     * @return The style the text is measured with at the current width, or null if the view wasn't laid out yet.
+     */
+    TextMeasureCache.Style getTextStyle() {
+        return getTextStyle(getWidth() - getPaddingLeft() - getPaddingRight());
+    }
+
+    private TextMeasureCache.Style getTextStyle(int width) {
+        if (width <= 0) return null;
+        if (style == null || style.getWidth() != width) {
+            style = new TextMeasureCache.Style(paint, width, spacingMultiplier, spacingAddition);
+        }
+        return style;
+    }
+
+    @Override
+    protected void onMeasure(int widthMeasureSpec, int heightMeasureSpec) {
+        int horizontalPadding = getPaddingLeft() + getPaddingRight();
+        int width;
+        exactWidth = MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.EXACTLY;
+        if (exactWidth) {
+            width = MeasureSpec.getSize(widthMeasureSpec);
+        } else {
+            width = (int) Math.ceil(Layout.getDesiredWidth(text, paint)) + horizontalPadding;
+            if (MeasureSpec.getMode(widthMeasureSpec) == MeasureSpec.AT_MOST) {
+                width = Math.min(width, MeasureSpec.getSize(widthMeasureSpec));
+            }
+        }
+        TextMeasureCache.Style style = getTextStyle(Math.max(1, width - horizontalPadding));
+        if (layout == null || layout.getWidth() != style.getWidth()) {
+            layout = TextMeasureCache.getInstance().obtain(text, style);
+        }
+        int height = layout.getHeight() + getPaddingTop() + getPaddingBottom();
+        setMeasuredDimension(width, resolveSize(height, heightMeasureSpec));
+    }
+
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (layout == null) return;
+        canvas.save();
+        canvas.translate(getPaddingLeft(), getPaddingTop());
+        layout.draw(canvas);
+        canvas.restore();
+    }
+}
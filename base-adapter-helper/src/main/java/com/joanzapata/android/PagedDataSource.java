@@ -0,0 +1,258 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.util.Log;
+import android.util.SparseArray;
+import android.util.SparseBooleanArray;
+
+import java.util.AbstractList;
+import java.util.List;
+
+import static com.joanzapata.android.AdapterExecutors.BACKGROUND;
+import static com.joanzapata.android.AdapterExecutors.MAIN;
+
+/**
+ * Read-only list of items loaded page by page, to give to a QuickAdapter instead of a full list.<br/>
+ * get() returns null as a placeholder for the items whose page isn't loaded yet,
+ * and starts loading it on a background thread. Once more than maxPages pages are
+ * loaded, the page the furthest from the last requested position is evicted.<br/>
+ * Must be used on the UI thread, except for {@link #loadPage(int, int)}.
+ * @param <T> The type of the items in the list.
+ */
+public abstract class PagedDataSource<T> extends AbstractList<T> {
+
+    private static final String TAG = PagedDataSource.class.getSimpleName();
+
+    private final int pageSize;
+
+    private final int maxPages;
+
+    private int count;
+
+    private final SparseArray<List<T>> pages = new SparseArray<List<T>>();
+
+    private final SparseBooleanArray loadingPages = new SparseBooleanArray();
+
+    private final SparseBooleanArray failedPages = new SparseBooleanArray();
+
+    /**
+     * Incremented by invalidate(), so that loads started before are dropped
+     */
+    private int generation;
+
+    private int lastRequestedPage;
+
+    private Listener listener;
+
+    /**
+     * Loading state last reported to the listener. Changes are reported on the next loop,
+     * since get() is called while the list lays out its rows, when it can't be notified.
+     */
+    private boolean reportedLoading;
+
+    private final Runnable loadingReporter = new Runnable() {
+        @Override
+        public void run() {
+            reportLoading();
+        }
+    };
+
+    /**
+     * @param pageSize The number of items of each page.
+     * @param maxPages The maximum number of pages kept in memory, at least 2.
+     */
+    public PagedDataSource(int pageSize, int maxPages) {
+        if (pageSize <= 0) throw new IllegalArgumentException("pageSize must be positive");
+        if (maxPages < 2) throw new IllegalArgumentException("maxPages must be at least 2");
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+    }
+
+    /**
+     * Load the items of a page. Called on a background thread.
+     * @param offset The position of the first item of the page.
+     * @param count  The number of items of the page, fewer for the last page.
+     * @return The items, or null if the page can't be loaded.
+     */
+    protected abstract List<T> loadPage(int offset, int count);
+
+    /**
+     * Set the total number of items, each item not loaded yet being a placeholder.
+     */
+    public void setCount(int count) {
+        if (count == this.count) return;
+        this.count = count;
+        // Drop the pages which don't fit anymore, and the last one which may be incomplete
+        for (int i = pages.size() - 1; i >= 0; i--) {
+            if ((pages.keyAt(i) + 1) * pageSize > count) pages.removeAt(i);
+        }
+        if (listener != null) listener.onPagesChanged();
+    }
+
+    @Override
+    public int size() {
+        return count;
+    }
+
+    /**
+     * @return The item, or null if its page is not loaded yet, in which case it starts loading.
+     */
+    @Override
+    public T get(int position) {
+        if (position < 0 || position >= count) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of [0, " + count + ")");
+        }
+        int page = position / pageSize;
+        lastRequestedPage = page;
+        List<T> items = pages.get(page);
+        if (items == null) {
+            load(page);
+            return null;
+        }
+        int index = position - page * pageSize;
+        return index < items.size() ? items.get(index) : null;
+    }
+
+    /**
+     * @return The item if its page is loaded, without loading it otherwise.
+     */
+    public T peek(int position) {
+        List<T> items = pages.get(position / pageSize);
+        int index = position % pageSize;
+        return items != null && index < items.size() ? items.get(index) : null;
+    }
+
+    public boolean isLoaded(int position) {
+        return pages.get(position / pageSize) != null;
+    }
+
+    /**
+     * @return true while pages are being loaded.
+     */
+    public boolean isLoading() {
+        return loadingPages.size() > 0;
+    }
+
+    /**
+     * Load again the pages that failed to load, when requested.
+     */
+    public void retry() {
+        failedPages.clear();
+        if (listener != null) listener.onPagesChanged();
+    }
+
+    /**
+     * Drop all the loaded pages, so that the items are loaded again when requested.
+     */
+    public void invalidate() {
+        generation++;
+        pages.clear();
+        failedPages.clear();
+        loadingPages.clear();
+        if (listener != null) listener.onPagesChanged();
+        reportLoading();
+    }
+
+    @Override
+    public int indexOf(Object object) {
+        // Only look in the loaded pages
+        for (int i = 0; i < pages.size(); i++) {
+            int index = pages.valueAt(i).indexOf(object);
+            if (index != -1) return pages.keyAt(i) * pageSize + index;
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return indexOf(object) != -1;
+    }
+
+    void setListener(Listener listener) {
+        this.listener = listener;
+        reportedLoading = false;
+        if (listener != null && isLoading()) MAIN.post(loadingReporter);
+    }
+
+    private void load(final int page) {
+        if (loadingPages.get(page) || failedPages.get(page)) return;
+        if (!isLoading()) {
+            MAIN.removeCallbacks(loadingReporter);
+            MAIN.post(loadingReporter);
+        }
+        loadingPages.put(page, true);
+        final int offset = page * pageSize;
+        final int size = Math.min(pageSize, count - offset);
+        final int loadGeneration = generation;
+        BACKGROUND.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> items = null;
+                try {
+                    items = loadPage(offset, size);
+                } catch (RuntimeException e) {
+                    Log.w(TAG, "Unable to load page " + page, e);
+                }
+                final List<T> loaded = items;
+                MAIN.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (loadGeneration == generation) onPageLoaded(page, loaded);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPageLoaded(int page, List<T> items) {
+        loadingPages.delete(page);
+        if (items == null) {
+            failedPages.put(page, true);
+        } else if (page * pageSize < count) {
+            pages.put(page, items);
+            evict();
+        }
+        if (listener != null && items != null) listener.onPagesChanged();
+        reportLoading();
+    }
+
+    private void reportLoading() {
+        boolean loading = isLoading();
+        if (loading == reportedLoading || listener == null) return;
+        reportedLoading = loading;
+        listener.onLoadingChanged(loading);
+    }
+
+    private void evict() {
+        while (pages.size() > maxPages) {
+            int furthest = 0;
+            for (int i = 1; i < pages.size(); i++) {
+                if (Math.abs(pages.keyAt(i) - lastRequestedPage) > Math.abs(pages.keyAt(furthest) - lastRequestedPage)) {
+                    furthest = i;
+                }
+            }
+            pages.removeAt(furthest);
+        }
+    }
+
+    interface Listener {
+
+        void onPagesChanged();
+
+        void onLoadingChanged(boolean loading);
+    }
+}
@@ -0,0 +1,173 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.content.Context;
+import android.graphics.Bitmap;
+import android.graphics.drawable.Drawable;
+import android.widget.ImageView;
+
+import com.squareup.picasso.Picasso;
+import com.squareup.picasso.RequestCreator;
+import com.squareup.picasso.Target;
+import com.squareup.picasso.Transformation;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * ImageLoader using Square's Picasso library, decoding images at the size of the target view
+ * (Picasso's resize(), which subsamples large images while they are decoded). Views not measured
+ * yet are resized once they are. Images of CENTER and MATRIX views are left as is, and
+ * CENTER_INSIDE views only get their images scaled down, after decoding, since Picasso
+ * would scale small images up, which this scale type doesn't.
+ */
+public class PicassoImageLoader implements ImageLoader {
+
+    private final Context context;
+
+    /**
+     * Pending prefetches by URL. Picasso only keeps weak references to its targets.
+     */
+    private final Map<String, PrefetchTarget> prefetches = new HashMap<String, PrefetchTarget>();
+
+    /**
+     * @param context Any context, used to retrieve Picasso when prefetching.
+     */
+    public PicassoImageLoader(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void load(ImageView view, String url, int width, int height) {
+        Picasso picasso = Picasso.with(view.getContext());
+        ImageView.ScaleType scaleType = view.getScaleType();
+        if (url != null && (width <= 0 || height <= 0) && isResized(scaleType)) {
+            // Not measured yet, Picasso waits for the layout to resize it
+            scale(picasso.load(url).fit(), scaleType).into(view);
+            return;
+        }
+        request(picasso, url, width, height, scaleType).into(view);
+    }
+
+    @Override
+    public void cancel(ImageView view) {
+        Picasso.with(view.getContext()).cancelRequest(view);
+    }
+
+    @Override
+    public void prefetch(String url, int width, int height, ImageView.ScaleType scaleType) {
+        if (url == null || prefetches.containsKey(url)) return;
+        // The display request will be resized, a full size image wouldn't be reused
+        if ((width <= 0 || height <= 0) && isResized(scaleType)) return;
+        PrefetchTarget target = new PrefetchTarget(url);
+        prefetches.put(url, target);
+        request(Picasso.with(context), url, width, height, scaleType).into(target);
+    }
+
+    @Override
+    public void cancelPrefetch(String url) {
+        PrefetchTarget target = prefetches.remove(url);
+        if (target != null) Picasso.with(context).cancelRequest(target);
+    }
+
+    /**
+     * Build the request for an image, the same way for display and prefetch so that they share the cache.
+     */
+    private static RequestCreator request(Picasso picasso, String url, int width, int height,
+                                          ImageView.ScaleType scaleType) {
+        RequestCreator request = picasso.load(url);
+        if (url == null || width <= 0 || height <= 0) return request;
+        if (scaleType == ImageView.ScaleType.CENTER_INSIDE) {
+            return request.transform(new ScaleDownTransformation(width, height));
+        }
+        return isResized(scaleType) ? scale(request.resize(width, height), scaleType) : request;
+    }
+
+    /**
+     * Whether the images of a view are decoded at its size. CENTER and MATRIX draw the image
+     * at its own size. For the other scale types the view draws the image at its own size
+     * anyway, so scaling small images up doesn't take more memory than what is displayed.
+     */
+    private static boolean isResized(ImageView.ScaleType scaleType) {
+        return scaleType != ImageView.ScaleType.CENTER && scaleType != ImageView.ScaleType.MATRIX
+                && scaleType != ImageView.ScaleType.CENTER_INSIDE;
+    }
+
+    /**
+     * Keep the parts of a resized image the view shows.
+     */
+    private static RequestCreator scale(RequestCreator request, ImageView.ScaleType scaleType) {
+        if (scaleType == ImageView.ScaleType.CENTER_CROP) return request.centerCrop();
+        if (scaleType == ImageView.ScaleType.FIT_XY) return request;
+        return request.centerInside();
+    }
+
+    /**
+     * Scales an image down to fit inside the view, for CENTER_INSIDE views.
+     */
+    private static final class ScaleDownTransformation implements Transformation {
+
+        private final int width;
+
+        private final int height;
+
+        ScaleDownTransformation(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        @Override
+        public Bitmap transform(Bitmap source) {
+            float scale = Math.min((float) width / source.getWidth(), (float) height / source.getHeight());
+            if (scale >= 1f) return source;
+
+            int scaledWidth = Math.max(1, Math.round(source.getWidth() * scale));
+            int scaledHeight = Math.max(1, Math.round(source.getHeight() * scale));
+            Bitmap scaled = Bitmap.createScaledBitmap(source, scaledWidth, scaledHeight, true);
+            if (scaled != source) source.recycle();
+            return scaled;
+        }
+
+        @Override
+        public String key() {
+            return "scaleDown(" + width + "x" + height + ")";
+        }
+    }
+
+    private final class PrefetchTarget implements Target {
+
+        private final String url;
+
+        PrefetchTarget(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public void onBitmapLoaded(Bitmap bitmap, Picasso.LoadedFrom from) {
+            prefetches.remove(url);
+        }
+
+        @Override
+        public void onBitmapFailed(Drawable errorDrawable) {
+            prefetches.remove(url);
+        }
+
+        @Override
+        public void onPrepareLoad(Drawable placeHolderDrawable) {
+        }
+    }
+}
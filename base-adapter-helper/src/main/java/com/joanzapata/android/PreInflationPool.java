@@ -0,0 +1,176 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.content.Context;
+import android.util.Log;
+import android.view.LayoutInflater;
+import android.view.ViewGroup;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pool of BaseAdapterHelpers inflated ahead of time on a background thread,
+ * so that the first getView() calls of an adapter don't have to inflate
+ * their layout on the UI thread.<br/>
+ * The layout must be safe to inflate outside of the UI thread, i.e. none of
+ * its views may need a Looper in its constructor.
+ * <p/>
+ * <b>Usage</b>
+ * <p/>
+ * <pre>
+ * adapter.preInflate(listView, 8);
+ * </pre>
+ */
+public class PreInflationPool {
+
+    private static final String TAG = PreInflationPool.class.getSimpleName();
+
+    private final Context context;
+
+    /**
+     * A clone of the inflater of the context, since LayoutInflater.inflate() holds a lock
+     * which would make the UI thread wait for the background inflations
+     */
+    private final LayoutInflater inflater;
+
+    private final int layoutResId;
+
+    private final ConcurrentLinkedQueue<BaseAdapterHelper> helpers = new ConcurrentLinkedQueue<BaseAdapterHelper>();
+
+    /**
+     * Helpers available or being inflated
+     */
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicInteger hitCount = new AtomicInteger();
+
+    private final AtomicInteger missCount = new AtomicInteger();
+
+    private volatile int maxSize;
+
+    private volatile boolean failed = false;
+
+    /**
+     * @param context     The context used to inflate the layout.
+     * @param layoutResId The layout resource id to inflate.
+     * @param maxSize     The maximum number of helpers kept in the pool.
+     */
+    public PreInflationPool(Context context, int layoutResId, int maxSize) {
+        this.context = context;
+        this.inflater = LayoutInflater.from(context).cloneInContext(context);
+        this.layoutResId = layoutResId;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Inflate helpers on a background thread until the pool holds count of them,
+     * without exceeding its maximum size.
+     *
+     * @param parent The parent the views will eventually be attached to, used for their layout params.
+     * @param count  The number of helpers the pool should hold.
+     */
+    public void preInflate(final ViewGroup parent, int count) {
+        count = Math.min(count, maxSize);
+        while (!failed) {
+            int current = size.get();
+            if (current >= count) return;
+            if (!size.compareAndSet(current, current + 1)) continue;
+            AdapterExecutors.BACKGROUND.execute(new Runnable() {
+                @Override
+                public void run() {
+                    inflate(parent);
+                }
+            });
+        }
+    }
+
+    private void inflate(ViewGroup parent) {
+        if (failed) {
+            size.decrementAndGet();
+            return;
+        }
+        try {
+            helpers.offer(new BaseAdapterHelper(context, inflater, parent, layoutResId, -1));
+        } catch (RuntimeException e) {
+            // Stop trying, getView() will inflate on the UI thread as usual
+            failed = true;
+            size.decrementAndGet();
+            Log.w(TAG, "Unable to inflate layout " + layoutResId + " in background", e);
+        }
+    }
+
+    /**
+     * Take a pre-inflated helper out of the pool.
+     *
+     * @return A helper, or null if none is available yet.
+     */
+    public BaseAdapterHelper acquire() {
+        BaseAdapterHelper helper = helpers.poll();
+        if (helper == null) {
+            missCount.incrementAndGet();
+            return null;
+        }
+        size.decrementAndGet();
+        hitCount.incrementAndGet();
+        return helper;
+    }
+
+    /**
+     * Change the maximum number of helpers kept in the pool, dropping the extra ones.
+     */
+    public void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        while (size.get() > maxSize && helpers.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * @return The number of helpers available or being inflated.
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * @return The number of acquire() calls that got a pre-inflated helper.
+     */
+    public int getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return The number of acquire() calls that found the pool empty.
+     */
+    public int getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Drop all the pre-inflated helpers.
+     */
+    public void clear() {
+        while (helpers.poll() != null) {
+            size.decrementAndGet();
+        }
+    }
+}
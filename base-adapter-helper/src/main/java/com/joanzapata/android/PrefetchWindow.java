@@ -0,0 +1,137 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.os.SystemClock;
+
+/**
+ * Follows the positions bound by an adapter to find the scroll direction, and
+ * returns the positions ahead of the viewport that were not prefetched yet.
+ */
+final class PrefetchWindow {
+
+    /**
+     * How far ahead in time the scaled distance looks, at the current scroll speed
+     */
+    private static final float LOOKAHEAD_SECONDS = 0.5f;
+
+    private int lastPosition = -1;
+
+    private long lastBindTime;
+
+    /**
+     * Smoothed scroll speed, in positions per second
+     */
+    private float speed;
+
+    private int direction = 1;
+
+    /**
+     * Contiguous range of positions already prefetched, from (inclusive) to (exclusive)
+     */
+    private int prefetchedFrom = 0;
+
+    private int prefetchedTo = 0;
+
+    /**
+     * Result of the last onBind(): positions to prefetch, from (inclusive) to (exclusive)
+     */
+    int from;
+
+    int to;
+
+    /**
+     * Positions ahead of the last bound one, prefetched or not, from (inclusive) to (exclusive)
+     */
+    int aheadFrom;
+
+    int aheadTo;
+
+    /**
+     * Record the binding of a position.
+     * @param position The position being bound.
+     * @param distance The number of positions to prefetch ahead of it.
+     * @param count    The number of items.
+     * @return true if there are new positions to prefetch, between {@link #from} and {@link #to}.
+     */
+    boolean onBind(int position, int distance, int count) {
+        long now = SystemClock.uptimeMillis();
+        if (lastPosition != -1 && position != lastPosition) {
+            int newDirection = position > lastPosition ? 1 : -1;
+            float newSpeed = 1000f * Math.abs(position - lastPosition) / Math.max(now - lastBindTime, 1);
+            speed = newDirection != direction ? 0 : (speed + newSpeed) / 2;
+            direction = newDirection;
+        }
+        lastPosition = position;
+        lastBindTime = now;
+
+        int wantedFrom, wantedTo;
+        if (direction > 0) {
+            wantedFrom = position + 1;
+            wantedTo = Math.min(position + 1 + distance, count);
+        } else {
+            wantedFrom = Math.max(position - distance, 0);
+            wantedTo = Math.min(position, count);
+        }
+        aheadFrom = wantedFrom;
+        aheadTo = wantedTo;
+        if (wantedFrom >= wantedTo) return false;
+
+        if (prefetchedFrom >= prefetchedTo || wantedTo < prefetchedFrom || wantedFrom > prefetchedTo) {
+            // Nothing prefetched yet, or a jump away from it
+            prefetchedFrom = from = wantedFrom;
+            prefetchedTo = to = wantedTo;
+            return true;
+        }
+
+        // Only prefetch what sticks out of the range on the scroll side
+        if (direction > 0) {
+            from = Math.max(wantedFrom, prefetchedTo);
+            to = wantedTo;
+        } else {
+            from = wantedFrom;
+            to = Math.min(wantedTo, prefetchedFrom);
+        }
+        prefetchedFrom = Math.min(prefetchedFrom, wantedFrom);
+        prefetchedTo = Math.max(prefetchedTo, wantedTo);
+        return from < to;
+    }
+
+    /**
+     * Grow a prefetch distance with the scroll speed, up to three times its value.
+     * @param distance The prefetch distance when scrolling slowly.
+     * @return The distance to give to onBind().
+     */
+    int scaledDistance(int distance) {
+        return distance + Math.min(2 * distance, (int) (speed * LOOKAHEAD_SECONDS));
+    }
+
+    /**
+     * @return 1 when scrolling towards the end of the list, -1 otherwise.
+     */
+    int direction() {
+        return direction;
+    }
+
+    /**
+     * Forget the prefetched positions, e.g. when the data changed.
+     */
+    void reset() {
+        lastPosition = -1;
+        speed = 0;
+        prefetchedFrom = prefetchedTo = 0;
+    }
+}
@@ -31,6 +31,8 @@ import static com.joanzapata.android.BaseAdapterHelper.get;
  */
 public abstract class QuickAdapter<T> extends BaseQuickAdapter<T, BaseAdapterHelper> {
 
+    protected PreInflationPool preInflationPool;
+
     /**
      * Create a QuickAdapter.
      * @param context     The context.
@@ -51,8 +53,38 @@ public abstract class QuickAdapter<T> extends BaseQuickAdapter<T, BaseAdapterHel
         super(context, layoutResId, data);
     }
 
+    /**
+     * Inflate count item views on a background thread, so that the first
+     * getView() calls don't have to inflate them on the UI thread.
+     * @param parent The AdapterView this adapter is or will be attached to.
+     * @param count  The number of item views to inflate ahead of time.
+     */
+    public void preInflate(ViewGroup parent, int count) {
+        if (preInflationPool == null) {
+            preInflationPool = new PreInflationPool(context, layoutResId, count);
+        }
+        preInflationPool.preInflate(parent, count);
+    }
+
+    /**
+     * Use the given pool to retrieve item views before inflating them.
+     * @param preInflationPool A pool inflating this adapter's layout, or null to disable pre-inflation.
+     */
+    public void setPreInflationPool(PreInflationPool preInflationPool) {
+        this.preInflationPool = preInflationPool;
+    }
+
+    public PreInflationPool getPreInflationPool() {
+        return preInflationPool;
+    }
+
     protected BaseAdapterHelper getAdapterHelper(int position, View convertView, ViewGroup parent) {
-        return get(context, convertView, parent, layoutResId, position);
+        int itemLayoutResId = getItemLayoutResId(position);
+        if (convertView == null && preInflationPool != null && itemLayoutResId == layoutResId) {
+            BaseAdapterHelper helper = preInflationPool.acquire();
+            if (helper != null) convertView = helper.getView();
+        }
+        return get(context, convertView, parent, itemLayoutResId, position);
     }
 
 }
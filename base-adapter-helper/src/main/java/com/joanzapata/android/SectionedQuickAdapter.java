@@ -0,0 +1,348 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.content.Context;
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.BaseAdapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.joanzapata.android.BaseAdapterHelper.get;
+
+/**
+ * Abstraction class of a BaseAdapter displaying sections of items, each preceded
+ * by a header, in which you only need to provide the convertHeader() and convert()
+ * implementations.<br/>
+ * The number of rows of each section is kept in a binary indexed tree, so mapping
+ * positions to sections and back, and changing the items of a section, cost O(log n)
+ * in the number of sections.<br/>
+ * It doesn't extend BaseQuickAdapter, whose mutation, filtering, sorting, diffing and
+ * load more methods all work on a single list of items, and would break the sections.
+ * Like BaseQuickAdapter, it supports the skip-unchanged mode and child click listeners.
+ * @param <S> The type of the section headers.
+ * @param <T> The type of the items in the sections.
+ */
+public abstract class SectionedQuickAdapter<S, T> extends BaseAdapter {
+
+    private static final int VIEW_TYPE_HEADER = 0;
+
+    private static final int VIEW_TYPE_ITEM = 1;
+
+    protected final Context context;
+
+    protected final int headerLayoutResId;
+
+    protected final int itemLayoutResId;
+
+    private final List<S> headers = new ArrayList<S>();
+
+    private final List<List<T>> sections = new ArrayList<List<T>>();
+
+    /**
+     * Number of rows of each section, header included
+     */
+    private FenwickTree rowCounts = new FenwickTree(new int[0], 0);
+
+    /**
+     * Section bound to the view returned by getStickyHeaderView()
+     */
+    private int stickyHeaderSection = -1;
+
+    private boolean skipUnchanged;
+
+    private SparseArray<BaseQuickAdapter.OnItemChildClickListener<T>> childClickListeners;
+
+    private int childClickListenersVersion;
+
+    /**
+     * Single listener attached to the clickable views of the items, dispatching to childClickListeners
+     */
+    private final View.OnClickListener childClickDispatcher = new View.OnClickListener() {
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onClick(View view) {
+            BaseQuickAdapter.OnItemChildClickListener<T> listener = childClickListeners.get(view.getId());
+            BaseAdapterHelper helper = BaseAdapterHelper.from(view);
+            if (listener == null || helper == null) return;
+            listener.onItemChildClick(view, helper.getPosition(), (T) helper.getAssociatedObject());
+        }
+    };
+
+    /**
+     * @param context           The context.
+     * @param headerLayoutResId The layout resource id of the section headers.
+     * @param itemLayoutResId   The layout resource id of each item.
+     */
+    public SectionedQuickAdapter(Context context, int headerLayoutResId, int itemLayoutResId) {
+        this.context = context;
+        this.headerLayoutResId = headerLayoutResId;
+        this.itemLayoutResId = itemLayoutResId;
+    }
+
+    @Override
+    public int getCount() {
+        return rowCounts.prefixSum(rowCounts.size());
+    }
+
+    /**
+     * @return The header S of a section, or an item T.
+     */
+    @Override
+    public Object getItem(int position) {
+        int section = getSectionForPosition(position);
+        int index = position - getPositionForSection(section);
+        return index == 0 ? headers.get(section) : sections.get(section).get(index - 1);
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    @Override
+    public int getViewTypeCount() {
+        return 2;
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return isHeader(position) ? VIEW_TYPE_HEADER : VIEW_TYPE_ITEM;
+    }
+
+    @Override
+    public boolean isEnabled(int position) {
+        return !isHeader(position);
+    }
+
+    @Override
+    public boolean areAllItemsEnabled() {
+        return false;
+    }
+
+    @Override
+    public View getView(int position, View convertView, ViewGroup parent) {
+        int section = getSectionForPosition(position);
+        int index = position - getPositionForSection(section);
+        if (index == 0) {
+            return bindHeader(section, position, convertView, parent);
+        }
+        BaseAdapterHelper helper = get(context, convertView, parent, itemLayoutResId, position);
+        helper.setSkipUnchanged(skipUnchanged);
+        if (childClickListeners != null) {
+            helper.attachClickDispatcher(childClickDispatcher, childClickListeners, childClickListenersVersion);
+        }
+        T item = sections.get(section).get(index - 1);
+        helper.onBindStarted(item);
+        convert(helper, item);
+        helper.onBindFinished();
+        helper.setAssociatedObject(item);
+        return helper.getView();
+    }
+
+    private View bindHeader(int section, int position, View convertView, ViewGroup parent) {
+        BaseAdapterHelper helper = get(context, convertView, parent, headerLayoutResId, position);
+        helper.setSkipUnchanged(skipUnchanged);
+        S header = headers.get(section);
+        helper.onBindStarted(header);
+        convertHeader(helper, header);
+        helper.onBindFinished();
+        helper.setAssociatedObject(header);
+        return helper.getView();
+    }
+
+    /**
+     * @return The section containing the position, in O(log n).
+     */
+    public int getSectionForPosition(int position) {
+        if (position < 0 || position >= getCount()) {
+            throw new IndexOutOfBoundsException("Position " + position + " out of [0, " + getCount() + ")");
+        }
+        return rowCounts.indexOf(position);
+    }
+
+    /**
+     * @return The position of the header of the section, in O(log n).
+     */
+    public int getPositionForSection(int section) {
+        return rowCounts.prefixSum(section);
+    }
+
+    public boolean isHeader(int position) {
+        return position == getPositionForSection(getSectionForPosition(position));
+    }
+
+    public int getSectionCount() {
+        return headers.size();
+    }
+
+    public S getHeader(int section) {
+        return headers.get(section);
+    }
+
+    /**
+     * @return The items of the section, which must not be modified directly.
+     */
+    public List<T> getSectionItems(int section) {
+        return sections.get(section);
+    }
+
+    /**
+     * Data for a sticky header drawn over the list.
+     * @param firstVisiblePosition The first visible position of the list.
+     * @return The position of the next header, under which the sticky header should slide
+     * when it reaches it, or -1 if the first visible section is the last one or the adapter is empty.
+     */
+    public int getNextHeaderPosition(int firstVisiblePosition) {
+        if (firstVisiblePosition < 0 || firstVisiblePosition >= getCount()) return -1;
+        int section = getSectionForPosition(firstVisiblePosition);
+        return section + 1 < headers.size() ? getPositionForSection(section + 1) : -1;
+    }
+
+    /**
+     * Get a view displaying the header of the section at the top of the list, to draw over it.
+     * The header is only converted again when the section changed.
+     * @param firstVisiblePosition The first visible position of the list.
+     * @param convertView          The view previously returned by this method, or null.
+     * @param parent               The parent the header view will be attached to.
+     * @return The header view, or null if the adapter is empty.
+     */
+    public View getStickyHeaderView(int firstVisiblePosition, View convertView, ViewGroup parent) {
+        if (firstVisiblePosition < 0 || firstVisiblePosition >= getCount()) return null;
+        int section = getSectionForPosition(firstVisiblePosition);
+        if (convertView != null && section == stickyHeaderSection) return convertView;
+        stickyHeaderSection = section;
+        return bindHeader(section, getPositionForSection(section), convertView, parent);
+    }
+
+    /**
+     * Enable the skip-unchanged mode on the helpers of this adapter,
+     * see {@link BaseAdapterHelper#setSkipUnchanged(boolean)}.
+     * @param skipUnchanged True to leave views untouched when their value didn't change.
+     */
+    public void setSkipUnchanged(boolean skipUnchanged) {
+        this.skipUnchanged = skipUnchanged;
+    }
+
+    /**
+     * Register a click listener for a view of the items, see
+     * {@link BaseQuickAdapter#setOnItemChildClickListener(int, BaseQuickAdapter.OnItemChildClickListener)}.
+     * The rows already displayed are updated when they are bound again.
+     * @param viewId   The id of the view in the item layout.
+     * @param listener The listener, or null to stop listening to this view.
+     */
+    public void setOnItemChildClickListener(int viewId, BaseQuickAdapter.OnItemChildClickListener<T> listener) {
+        if (childClickListeners == null) {
+            childClickListeners = new SparseArray<BaseQuickAdapter.OnItemChildClickListener<T>>();
+        }
+        if (listener == null) {
+            if (childClickListeners.get(viewId) == null) return;
+            childClickListeners.remove(viewId);
+        } else {
+            childClickListeners.put(viewId, listener);
+        }
+        childClickListenersVersion++;
+    }
+
+    public void addSection(S header, List<T> items) {
+        addSection(headers.size(), header, items);
+    }
+
+    public void addSection(int section, S header, List<T> items) {
+        headers.add(section, header);
+        sections.add(section, items == null ? new ArrayList<T>() : new ArrayList<T>(items));
+        rebuildRowCounts();
+    }
+
+    public void setHeader(int section, S header) {
+        headers.set(section, header);
+        stickyHeaderSection = -1;
+        notifyDataSetChanged();
+    }
+
+    public void removeSection(int section) {
+        headers.remove(section);
+        sections.remove(section);
+        rebuildRowCounts();
+    }
+
+    public void addItem(int section, T item) {
+        sections.get(section).add(item);
+        rowCounts.add(section, 1);
+        notifyDataSetChanged();
+    }
+
+    public void addItems(int section, List<T> items) {
+        sections.get(section).addAll(items);
+        rowCounts.add(section, items.size());
+        notifyDataSetChanged();
+    }
+
+    public void setItem(int section, int index, T item) {
+        sections.get(section).set(index, item);
+        notifyDataSetChanged();
+    }
+
+    public void removeItem(int section, int index) {
+        sections.get(section).remove(index);
+        rowCounts.add(section, -1);
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Replace the items of a section.
+     */
+    public void replaceItems(int section, List<T> items) {
+        List<T> sectionItems = sections.get(section);
+        int delta = items.size() - sectionItems.size();
+        sectionItems.clear();
+        sectionItems.addAll(items);
+        rowCounts.add(section, delta);
+        notifyDataSetChanged();
+    }
+
+    /** Clear all the sections */
+    public void clear() {
+        headers.clear();
+        sections.clear();
+        rebuildRowCounts();
+    }
+
+    private void rebuildRowCounts() {
+        int[] counts = new int[sections.size()];
+        for (int i = 0; i < counts.length; i++) counts[i] = sections.get(i).size() + 1;
+        rowCounts = new FenwickTree(counts, counts.length);
+        stickyHeaderSection = -1;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Implement this method and use the helper to adapt the view to the given section header.
+     * @param helper A fully initialized helper.
+     * @param header The header that needs to be displayed.
+     */
+    protected abstract void convertHeader(BaseAdapterHelper helper, S header);
+
+    /**
+     * Implement this method and use the helper to adapt the view to the given item.
+     * @param helper A fully initialized helper.
+     * @param item   The item that needs to be displayed.
+     */
+    protected abstract void convert(BaseAdapterHelper helper, T item);
+}
@@ -0,0 +1,277 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.app.Activity;
+import android.content.Context;
+import android.content.ContextWrapper;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AbsListView;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Process-wide pool of inflated item views, indexed by layout resource id,
+ * from which BaseAdapterHelper.get() draws before inflating a layout.<br/>
+ * Views are given back with {@link BaseAdapterHelper#release()},
+ * {@link #release(View)} or {@link #releaseAll(AbsListView)}, and can then be
+ * reused by any adapter using the same layout and Context, in the same kind of parent.
+ * <br/>
+ * The pool is disabled until a maximum size is set. When it is full, the views of
+ * the least recently used layouts are evicted first.<br/>
+ * Pooled views keep the Context they were inflated with: each Activity using the pool
+ * must call {@link #evict(Context)} from its onDestroy(). As a safety net, releaseAll()
+ * also drops the views of finishing Activities.
+ * <p/>
+ * <b>Usage</b>
+ * <p/>
+ * <pre>
+ * SharedViewPool.getInstance().setMaxSize(40);
+ * ...
+ * public void onDestroyView() {
+ *     SharedViewPool.getInstance().releaseAll(listView);
+ * }
+ * public void onDestroy() {
+ *     SharedViewPool.getInstance().evict(this);
+ * }
+ * </pre>
+ */
+public final class SharedViewPool {
+
+    public static final int DEFAULT_MAX_SIZE_PER_LAYOUT = 10;
+
+    private static final SharedViewPool INSTANCE = new SharedViewPool();
+
+    /**
+     * Pooled helpers by layout id, in access order for LRU eviction
+     */
+    private final LinkedHashMap<Integer, ArrayList<BaseAdapterHelper>> helpersByLayout =
+            new LinkedHashMap<Integer, ArrayList<BaseAdapterHelper>>(16, 0.75f, true);
+
+    private final ArrayList<View> reclaimedViews = new ArrayList<View>();
+
+    private volatile int maxSize = 0;
+
+    private int maxSizePerLayout = DEFAULT_MAX_SIZE_PER_LAYOUT;
+
+    private int size;
+
+    private int hitCount;
+
+    private int missCount;
+
+    private int evictionCount;
+
+    private SharedViewPool() {
+    }
+
+    public static SharedViewPool getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Set the maximum number of views retained by the pool, all layouts included.
+     * @param maxSize The maximum number of views, 0 disables the pool.
+     */
+    public synchronized void setMaxSize(int maxSize) {
+        this.maxSize = maxSize;
+        trimToSize(maxSize);
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Set the maximum number of views retained for a single layout.
+     */
+    public synchronized void setMaxSizePerLayout(int maxSizePerLayout) {
+        this.maxSizePerLayout = maxSizePerLayout;
+        for (ArrayList<BaseAdapterHelper> helpers : helpersByLayout.values()) {
+            while (helpers.size() > maxSizePerLayout) {
+                helpers.remove(0);
+                size--;
+                evictionCount++;
+            }
+        }
+    }
+
+    public synchronized int getMaxSizePerLayout() {
+        return maxSizePerLayout;
+    }
+
+    /**
+     * Take a view of the given layout out of the pool.
+     * @param context  The context the view must have been inflated with.
+     * @param parent   The parent the view will be attached to.
+     * @param layoutId The layout resource id.
+     * @return The helper of the view, or null if the pool has none.
+     */
+    BaseAdapterHelper acquire(Context context, ViewGroup parent, int layoutId) {
+        if (maxSize == 0) return null;
+        synchronized (this) {
+            ArrayList<BaseAdapterHelper> helpers = helpersByLayout.get(layoutId);
+            if (helpers != null) {
+                for (int i = helpers.size() - 1; i >= 0; i--) {
+                    if (helpers.get(i).isReusableIn(context, parent)) {
+                        size--;
+                        hitCount++;
+                        return helpers.remove(i);
+                    }
+                }
+            }
+            missCount++;
+            return null;
+        }
+    }
+
+    /**
+     * Give a helper back to the pool. Its view must be detached from its parent.
+     * @return True if the pool retained it.
+     */
+    public synchronized boolean release(BaseAdapterHelper helper) {
+        if (maxSize == 0 || helper.getView().getParent() != null) return false;
+        int layoutId = helper.getLayoutId();
+        ArrayList<BaseAdapterHelper> helpers = helpersByLayout.get(layoutId);
+        if (helpers == null) {
+            helpers = new ArrayList<BaseAdapterHelper>();
+            helpersByLayout.put(layoutId, helpers);
+        } else if (helpers.contains(helper)) {
+            return true;
+        }
+        helper.resetForPool();
+        helpers.add(helper);
+        size++;
+        if (helpers.size() > maxSizePerLayout) {
+            helpers.remove(0);
+            size--;
+            evictionCount++;
+        }
+        trimToSize(maxSize);
+        return helpers.contains(helper);
+    }
+
+    /**
+     * Give a view created by a BaseAdapterHelper back to the pool.
+     * @return True if the pool retained it.
+     */
+    public boolean release(View view) {
+        Object tag = view.getTag();
+        return tag instanceof BaseAdapterHelper && release((BaseAdapterHelper) tag);
+    }
+
+    /**
+     * Remove all the item views of a list, on screen and in its recycler,
+     * and give them back to the pool. Call it when the list is destroyed.
+     */
+    public synchronized void releaseAll(AbsListView listView) {
+        if (maxSize == 0) return;
+        evictFinishing();
+        listView.reclaimViews(reclaimedViews);
+        for (int i = 0, count = reclaimedViews.size(); i < count; i++) {
+            View view = reclaimedViews.get(i);
+            ViewGroup parent = (ViewGroup) view.getParent();
+            if (parent != null) parent.removeView(view);
+            release(view);
+        }
+        reclaimedViews.clear();
+    }
+
+    /**
+     * Drop all the views inflated with the given context, e.g. when its Activity is destroyed.
+     */
+    public synchronized void evict(Context context) {
+        Iterator<ArrayList<BaseAdapterHelper>> iterator = helpersByLayout.values().iterator();
+        while (iterator.hasNext()) {
+            List<BaseAdapterHelper> helpers = iterator.next();
+            for (int i = helpers.size() - 1; i >= 0; i--) {
+                if (helpers.get(i).isReusableIn(context, null)) {
+                    helpers.remove(i);
+                    size--;
+                }
+            }
+            if (helpers.isEmpty()) iterator.remove();
+        }
+    }
+
+    /**
+     * Drop the views inflated with an Activity which is finishing and will never use them.
+     */
+    private void evictFinishing() {
+        Iterator<ArrayList<BaseAdapterHelper>> iterator = helpersByLayout.values().iterator();
+        while (iterator.hasNext()) {
+            List<BaseAdapterHelper> helpers = iterator.next();
+            for (int i = helpers.size() - 1; i >= 0; i--) {
+                Activity activity = activityOf(helpers.get(i).getContext());
+                if (activity != null && activity.isFinishing()) {
+                    helpers.remove(i);
+                    size--;
+                }
+            }
+            if (helpers.isEmpty()) iterator.remove();
+        }
+    }
+
+    private static Activity activityOf(Context context) {
+        while (context instanceof ContextWrapper) {
+            if (context instanceof Activity) return (Activity) context;
+            context = ((ContextWrapper) context).getBaseContext();
+        }
+        return null;
+    }
+
+    /**
+     * Drop all the pooled views.
+     */
+    public synchronized void clear() {
+        helpersByLayout.clear();
+        size = 0;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized int getHitCount() {
+        return hitCount;
+    }
+
+    public synchronized int getMissCount() {
+        return missCount;
+    }
+
+    public synchronized int getEvictionCount() {
+        return evictionCount;
+    }
+
+    private void trimToSize(int maxSize) {
+        Iterator<Map.Entry<Integer, ArrayList<BaseAdapterHelper>>> iterator = helpersByLayout.entrySet().iterator();
+        while (size > maxSize && iterator.hasNext()) {
+            ArrayList<BaseAdapterHelper> helpers = iterator.next().getValue();
+            while (size > maxSize && !helpers.isEmpty()) {
+                helpers.remove(0);
+                size--;
+                evictionCount++;
+            }
+            if (helpers.isEmpty()) iterator.remove();
+        }
+    }
+}
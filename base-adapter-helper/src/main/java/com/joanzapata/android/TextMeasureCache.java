@@ -0,0 +1,210 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.graphics.Typeface;
+import android.support.v4.util.LruCache;
+import android.text.Layout;
+import android.text.Spanned;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Measures texts on a background thread, for the width and paint of a given
+ * {@link MeasuredTextView}, which then draws the measured layout when the text is set,
+ * instead of laying it out on the UI thread.<br/>
+ * The layouts are kept in an LRU cache keyed by text and style. Texts that were not
+ * measured ahead of time are laid out on the UI thread by the view, and cached as well.
+ * Styled texts (Spanned) are never cached, their spans not being part of the key.
+ */
+public final class TextMeasureCache {
+
+    public static final int DEFAULT_MAX_SIZE = 100;
+
+    private static final TextMeasureCache INSTANCE = new TextMeasureCache(DEFAULT_MAX_SIZE);
+
+    private volatile LruCache<Key, StaticLayout> cache;
+
+    /**
+     * Keys being measured, to avoid measuring a text twice
+     */
+    private final Set<Key> pending = new HashSet<Key>();
+
+    private TextMeasureCache(int maxSize) {
+        cache = new LruCache<Key, StaticLayout>(maxSize);
+    }
+
+    public static TextMeasureCache getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Measure a text on a background thread, unless it was already measured with this style.
+     */
+    public void prefetch(CharSequence text, final Style style) {
+        if (text == null || style == null || text instanceof Spanned) return;
+        final Key key = new Key(text.toString(), style);
+        synchronized (pending) {
+            if (cache.get(key) != null || !pending.add(key)) return;
+        }
+        AdapterExecutors.BACKGROUND.execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    cache.put(key, style.measure(key.text));
+                } finally {
+                    synchronized (pending) {
+                        pending.remove(key);
+                    }
+                }
+            }
+        });
+    }
+
+    /**
+     * @return The layout measured ahead of time for this text and style, or null if there is none.
+     */
+    public StaticLayout get(CharSequence text, Style style) {
+        if (text == null || style == null) return null;
+        return cache.get(new Key(text.toString(), style));
+    }
+
+    /**
+     * @return The layout of this text and style, measured ahead of time or now.
+     */
+    StaticLayout obtain(CharSequence text, Style style) {
+        if (text instanceof Spanned) return style.measure(text);
+        Key key = new Key(text.toString(), style);
+        StaticLayout layout = cache.get(key);
+        if (layout == null) {
+            layout = style.measure(key.text);
+            cache.put(key, layout);
+        }
+        return layout;
+    }
+
+    /**
+     * Change the maximum number of measured texts kept in cache. This drops the cached layouts.
+     */
+    public void setMaxSize(int maxSize) {
+        cache = new LruCache<Key, StaticLayout>(maxSize);
+    }
+
+    public void evictAll() {
+        cache.evictAll();
+    }
+
+    public int hitCount() {
+        return cache.hitCount();
+    }
+
+    public int missCount() {
+        return cache.missCount();
+    }
+
+    /**
+     * Everything that affects the layout of a text in a MeasuredTextView, captured from the view.
+     */
+    public static final class Style {
+
+        private final TextPaint paint;
+
+        private final int width;
+
+        private final float spacingMultiplier;
+
+        private final float spacingAddition;
+
+        Style(TextPaint paint, int width, float spacingMultiplier, float spacingAddition) {
+            this.paint = new TextPaint(paint);
+            this.width = width;
+            this.spacingMultiplier = spacingMultiplier;
+            this.spacingAddition = spacingAddition;
+        }
+
+        /**
+         * Capture the style of a MeasuredTextView.
+         * @return The style, or null if the view wasn't laid out yet.
+         */
+        public static Style from(MeasuredTextView view) {
+            return view.getTextStyle();
+        }
+
+        public int getWidth() {
+            return width;
+        }
+
+        StaticLayout measure(CharSequence text) {
+            // TextPaint isn't thread safe, each measure gets its own copy
+            return new StaticLayout(text, new TextPaint(paint), width, Layout.Alignment.ALIGN_NORMAL,
+                    spacingMultiplier, spacingAddition, true);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Style)) return false;
+            Style style = (Style) o;
+            Typeface typeface = paint.getTypeface();
+            return width == style.width
+                    && paint.getTextSize() == style.paint.getTextSize()
+                    && (typeface == null ? style.paint.getTypeface() == null : typeface.equals(style.paint.getTypeface()))
+                    && paint.getFlags() == style.paint.getFlags()
+                    && paint.getTextScaleX() == style.paint.getTextScaleX()
+                    && paint.getColor() == style.paint.getColor()
+                    && spacingMultiplier == style.spacingMultiplier
+                    && spacingAddition == style.spacingAddition;
+        }
+
+        @Override
+        public int hashCode() {
+            int result = width;
+            result = 31 * result + Float.floatToIntBits(paint.getTextSize());
+            result = 31 * result + (paint.getTypeface() == null ? 0 : paint.getTypeface().hashCode());
+            result = 31 * result + paint.getFlags();
+            result = 31 * result + paint.getColor();
+            return result;
+        }
+    }
+
+    private static final class Key {
+
+        final String text;
+
+        final Style style;
+
+        Key(String text, Style style) {
+            this.text = text;
+            this.style = style;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            Key key = (Key) o;
+            return text.equals(key.text) && style.equals(key.style);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * text.hashCode() + style.hashCode();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.view.View;
+
+/**
+ * Resolves all the views of a layout at once into a typed object.<br/>
+ * Implementations are generated by the base-adapter-helper-compiler
+ * annotation processor for each class annotated with {@link BindLayout},
+ * but can also be written by hand and given to {@link ViewBinders#register(int, ViewBinder)}.
+ * @param <B> The type of the object holding the views.
+ */
+public interface ViewBinder<B> {
+
+    /**
+     * Find all the views of the layout under the given root.
+     * @param root The freshly inflated layout.
+     * @return A new binding holding direct references to the views.
+     */
+    B bind(View root);
+
+    /**
+     * Retrieve a view of a binding by its id.
+     * @param binding A binding previously returned by {@link #bind(View)}.
+     * @param viewId  The view id.
+     * @return The view, or null if the binding doesn't hold a view with this id.
+     */
+    View findView(B binding, int viewId);
+}
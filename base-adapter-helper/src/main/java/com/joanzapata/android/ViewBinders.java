@@ -0,0 +1,139 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.util.Log;
+import android.util.SparseArray;
+import android.view.View;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+
+/**
+ * Registry of the {@link ViewBinder}s, indexed by layout resource id.<br/>
+ * Generated binders are discovered through the index classes written by
+ * the base-adapter-helper-compiler annotation processor, one per package,
+ * which are listed in META-INF/services like for a ServiceLoader. Layouts
+ * without binder are resolved lazily by BaseAdapterHelper.
+ */
+public final class ViewBinders {
+
+    private static final String TAG = ViewBinders.class.getSimpleName();
+
+    /**
+     * Resource listing the index classes generated by the annotation processor.
+     * ServiceLoader itself only exists from API 9.
+     */
+    static final String INDEX_SERVICE = "META-INF/services/" + Index.class.getName();
+
+    /**
+     * Implemented by the generated index classes.
+     */
+    public interface Index {
+
+        /**
+         * @param layoutResId The layout resource id.
+         * @return The generated binder of this layout, or null if there is none.
+         */
+        ViewBinder<?> get(int layoutResId);
+    }
+
+    /**
+     * Marks a layout known to have no binder, so it is only looked up once.
+     */
+    private static final ViewBinder<Object> NONE = new ViewBinder<Object>() {
+        @Override
+        public Object bind(View root) {
+            return null;
+        }
+
+        @Override
+        public View findView(Object binding, int viewId) {
+            return null;
+        }
+    };
+
+    private static final SparseArray<ViewBinder<?>> binders = new SparseArray<ViewBinder<?>>();
+
+    private static List<Index> indexes;
+
+    private ViewBinders() {
+    }
+
+    /**
+     * Register a binder for a layout, replacing the generated one if any.
+     * @param layoutResId The layout resource id.
+     * @param binder      The binder to use for this layout.
+     */
+    public static synchronized void register(int layoutResId, ViewBinder<?> binder) {
+        binders.put(layoutResId, binder == null ? NONE : binder);
+    }
+
+    /**
+     * @param layoutResId The layout resource id.
+     * @return The binder of this layout, or null if there is none.
+     */
+    public static synchronized ViewBinder<?> get(int layoutResId) {
+        ViewBinder<?> binder = binders.get(layoutResId);
+        if (binder == null) {
+            for (Index index : loadIndexes()) {
+                binder = index.get(layoutResId);
+                if (binder != null) break;
+            }
+            if (binder == null) binder = NONE;
+            binders.put(layoutResId, binder);
+        }
+        return binder == NONE ? null : binder;
+    }
+
+    private static List<Index> loadIndexes() {
+        if (indexes != null) return indexes;
+        indexes = new ArrayList<Index>();
+        ClassLoader loader = ViewBinders.class.getClassLoader();
+        try {
+            Enumeration<URL> resources = loader.getResources(INDEX_SERVICE);
+            while (resources.hasMoreElements()) readIndexes(resources.nextElement(), loader);
+        } catch (IOException e) {
+            Log.w(TAG, "Unable to read " + INDEX_SERVICE, e);
+        }
+        // No layout annotated with @BindLayout if empty, fall back on lazy lookups
+        return indexes;
+    }
+
+    private static void readIndexes(URL url, ClassLoader loader) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(url.openStream(), "UTF-8"));
+        try {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                int comment = line.indexOf('#');
+                String className = (comment == -1 ? line : line.substring(0, comment)).trim();
+                if (className.length() == 0) continue;
+                try {
+                    indexes.add((Index) Class.forName(className, true, loader).newInstance());
+                } catch (Exception e) {
+                    Log.w(TAG, "Unable to load " + className, e);
+                }
+            }
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,189 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * View-models prepared for the items of an adapter, the least recently used being
+ * dropped once their total weight exceeds a maximum. Must be used on the UI thread.
+ */
+final class ViewModelCache {
+
+    private final LinkedHashMap<Object, Entry> entries = new LinkedHashMap<Object, Entry>(16, 0.75f, true);
+
+    private int maxWeight;
+
+    /**
+     * Weighs the view-models, or null to count 1 for each
+     */
+    private BaseQuickAdapter.ViewModelWeigher<Object> weigher;
+
+    private int totalWeight;
+
+    private int hitCount;
+
+    private int missCount;
+
+    ViewModelCache(int maxWeight) {
+        this.maxWeight = maxWeight;
+    }
+
+    void setMaxWeight(int maxWeight, BaseQuickAdapter.ViewModelWeigher<Object> weigher) {
+        if (maxWeight < 0) throw new IllegalArgumentException("maxWeight < 0");
+        this.maxWeight = maxWeight;
+        if (weigher != this.weigher) {
+            this.weigher = weigher;
+            totalWeight = 0;
+            for (Entry entry : entries.values()) {
+                entry.weight = weightOf(entry.viewModel);
+                totalWeight += entry.weight;
+            }
+        }
+        trim();
+    }
+
+    /**
+     * Returns the view-model of the given key, counting a hit or a miss.
+     */
+    Object get(Object key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            missCount++;
+            return null;
+        }
+        hitCount++;
+        return entry.viewModel;
+    }
+
+    boolean contains(Object key) {
+        return entries.containsKey(key);
+    }
+
+    /**
+     * @param item The item the view-model was prepared from.
+     */
+    void put(Object key, Object item, Object viewModel) {
+        Entry entry = new Entry(item, viewModel, weightOf(viewModel));
+        Entry previous = entries.put(key, entry);
+        if (previous != null) totalWeight -= previous.weight;
+        totalWeight += entry.weight;
+        trim();
+    }
+
+    void remove(Object key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) totalWeight -= entry.weight;
+    }
+
+    /**
+     * Remove the view-models whose item is no longer the current item of their key,
+     * unless the comparator tells the current one has the same content.
+     * @param current    The current item of each key.
+     * @param comparator Compares the replaced items, or null to only keep the same items.
+     */
+    @SuppressWarnings("unchecked")
+    <T> void retain(Map<Object, T> current, ItemComparator<T> comparator) {
+        Iterator<Map.Entry<Object, Entry>> iterator = entries.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<Object, Entry> mapEntry = iterator.next();
+            Entry entry = mapEntry.getValue();
+            T item = current.get(mapEntry.getKey());
+            T preparedItem = (T) entry.item;
+            if (item == preparedItem) continue;
+            if (item != null && comparator != null && comparator.areItemsTheSame(preparedItem, item)
+                    && comparator.areContentsTheSame(preparedItem, item)) continue;
+            totalWeight -= entry.weight;
+            iterator.remove();
+        }
+    }
+
+    void clear() {
+        entries.clear();
+        totalWeight = 0;
+    }
+
+    int size() {
+        return entries.size();
+    }
+
+    int getHitCount() {
+        return hitCount;
+    }
+
+    int getMissCount() {
+        return missCount;
+    }
+
+    void resetCounts() {
+        hitCount = 0;
+        missCount = 0;
+    }
+
+    private int weightOf(Object viewModel) {
+        if (weigher == null) return 1;
+        int weight = weigher.weightOf(viewModel);
+        if (weight < 0) throw new IllegalStateException("Negative weight: " + viewModel);
+        return weight;
+    }
+
+    private void trim() {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (totalWeight > maxWeight && iterator.hasNext()) {
+            totalWeight -= iterator.next().weight;
+            iterator.remove();
+        }
+    }
+
+    private static final class Entry {
+
+        final Object item;
+
+        final Object viewModel;
+
+        int weight;
+
+        Entry(Object item, Object viewModel, int weight) {
+            this.item = item;
+            this.viewModel = viewModel;
+            this.weight = weight;
+        }
+    }
+
+    /**
+     * Compares items by reference, for items without a stable id.
+     */
+    static final class IdentityKey {
+
+        private final Object item;
+
+        IdentityKey(Object item) {
+            this.item = item;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof IdentityKey && ((IdentityKey) o).item == item;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(item);
+        }
+    }
+}
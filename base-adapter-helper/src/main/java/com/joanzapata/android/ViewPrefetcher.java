@@ -0,0 +1,96 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import android.util.SparseArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.Arrays;
+
+/**
+ * Learns which view ids are retrieved for each layout, so that the next
+ * inflations of this layout can resolve all of them in a single
+ * depth-first walk of the view hierarchy, instead of one findViewById()
+ * walk per id.
+ */
+final class ViewPrefetcher {
+
+    private static boolean enabled = false;
+
+    /**
+     * Sorted view ids retrieved so far, indexed by layout id.
+     * Arrays are replaced, never modified, so they can be read outside the lock.
+     */
+    private static final SparseArray<int[]> learnedIds = new SparseArray<int[]>();
+
+    private ViewPrefetcher() {
+    }
+
+    static synchronized void setEnabled(boolean enabled) {
+        ViewPrefetcher.enabled = enabled;
+        if (!enabled) learnedIds.clear();
+    }
+
+    /**
+     * Record a view id that had to be looked up lazily in the given layout.
+     */
+    static synchronized void learn(int layoutId, int viewId) {
+        if (!enabled || viewId == View.NO_ID) return;
+        int[] ids = learnedIds.get(layoutId);
+        if (ids == null) {
+            learnedIds.put(layoutId, new int[]{viewId});
+            return;
+        }
+        int index = Arrays.binarySearch(ids, viewId);
+        if (index >= 0) return;
+        index = -index - 1;
+        int[] newIds = new int[ids.length + 1];
+        System.arraycopy(ids, 0, newIds, 0, index);
+        newIds[index] = viewId;
+        System.arraycopy(ids, index, newIds, index + 1, ids.length - index);
+        learnedIds.put(layoutId, newIds);
+    }
+
+    /**
+     * Put in views all the views of root whose id was learned for this layout.
+     * As with findViewById(), the first view found in depth-first order wins.
+     */
+    static void prefetch(int layoutId, View root, SparseArray<View> views) {
+        int[] ids;
+        synchronized (ViewPrefetcher.class) {
+            if (!enabled) return;
+            ids = learnedIds.get(layoutId);
+        }
+        if (ids == null) return;
+        walk(root, ids, views, 0);
+    }
+
+    private static int walk(View view, int[] ids, SparseArray<View> views, int found) {
+        int id = view.getId();
+        if (id != View.NO_ID && Arrays.binarySearch(ids, id) >= 0 && views.indexOfKey(id) < 0) {
+            views.put(id, view);
+            if (++found == ids.length) return found;
+        }
+        if (view instanceof ViewGroup) {
+            ViewGroup group = (ViewGroup) view;
+            for (int i = 0, count = group.getChildCount(); i < count && found < ids.length; i++) {
+                found = walk(group.getChildAt(i), ids, views, found);
+            }
+        }
+        return found;
+    }
+}
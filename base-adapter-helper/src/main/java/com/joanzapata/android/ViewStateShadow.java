@@ -0,0 +1,134 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import java.util.Arrays;
+
+/**
+ * Keeps the last value applied by a BaseAdapterHelper for each (view id, property)
+ * pair, so that writes of unchanged values can be skipped.<br/>
+ * Keys and primitive values are kept in sorted parallel arrays, like a SparseArray,
+ * object values in a third array.
+ */
+final class ViewStateShadow {
+
+    static final int TEXT = 1;
+
+    static final int TEXT_COLOR = 2;
+
+    static final int ALPHA = 3;
+
+    private long[] keys = new long[8];
+
+    private long[] values = new long[8];
+
+    private Object[] objects = new Object[8];
+
+    private int size;
+
+    /**
+     * Record a primitive value.
+     * @return true if it differs from the last value recorded for this view and property.
+     */
+    boolean update(int viewId, int property, long value) {
+        long key = key(viewId, property);
+        int index = indexOf(key);
+        if (index >= 0) {
+            if (objects[index] == null && values[index] == value) return false;
+            values[index] = value;
+            objects[index] = null;
+            return true;
+        }
+        insert(-index - 1, key, value, null);
+        return true;
+    }
+
+    /**
+     * Record an object value. A null value is never considered unchanged.
+     * @return true if it differs from the last value recorded for this view and property.
+     */
+    boolean update(int viewId, int property, Object value) {
+        long key = key(viewId, property);
+        int index = indexOf(key);
+        if (index >= 0) {
+            Object previous = objects[index];
+            if (value != null && (previous == value || value.equals(previous))) return false;
+            objects[index] = value;
+            return true;
+        }
+        insert(-index - 1, key, 0, value);
+        return true;
+    }
+
+    /**
+     * Forget the last value of a property, the next update will be considered a change.
+     */
+    void forget(int viewId, int property) {
+        int index = indexOf(key(viewId, property));
+        if (index < 0) return;
+        System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+        System.arraycopy(values, index + 1, values, index, size - index - 1);
+        System.arraycopy(objects, index + 1, objects, index, size - index - 1);
+        objects[--size] = null;
+    }
+
+    void clear() {
+        Arrays.fill(objects, 0, size, null);
+        size = 0;
+    }
+
+    private void insert(int index, long key, long value, Object object) {
+        if (size == keys.length) {
+            int capacity = size * 2;
+            long[] newKeys = new long[capacity];
+            long[] newValues = new long[capacity];
+            Object[] newObjects = new Object[capacity];
+            System.arraycopy(keys, 0, newKeys, 0, size);
+            System.arraycopy(values, 0, newValues, 0, size);
+            System.arraycopy(objects, 0, newObjects, 0, size);
+            keys = newKeys;
+            values = newValues;
+            objects = newObjects;
+        }
+        System.arraycopy(keys, index, keys, index + 1, size - index);
+        System.arraycopy(values, index, values, index + 1, size - index);
+        System.arraycopy(objects, index, objects, index + 1, size - index);
+        keys[index] = key;
+        values[index] = value;
+        objects[index] = object;
+        size++;
+    }
+
+    /**
+     * Same as Arrays.binarySearch(keys, 0, size, key), which only exists from API 9.
+     */
+    private int indexOf(long key) {
+        int lo = 0;
+        int hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long midKey = keys[mid];
+            if (midKey < key) lo = mid + 1;
+            else if (midKey > key) hi = mid - 1;
+            else return mid;
+        }
+        return -(lo + 1);
+    }
+
+    private static long key(int viewId, int property) {
+        return ((long) viewId << 8) | property;
+    }
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class FenwickTreeTest {
+
+    @Test
+    public void prefixSums() {
+        FenwickTree tree = new FenwickTree(new int[]{3, 1, 4, 1, 5}, 5);
+        assertEquals(0, tree.prefixSum(0));
+        assertEquals(3, tree.prefixSum(1));
+        assertEquals(8, tree.prefixSum(3));
+        assertEquals(14, tree.prefixSum(5));
+    }
+
+    @Test
+    public void usesOnlyTheGivenSize() {
+        FenwickTree tree = new FenwickTree(new int[]{1, 2, 100, 100}, 2);
+        assertEquals(2, tree.size());
+        assertEquals(3, tree.prefixSum(2));
+    }
+
+    @Test
+    public void add() {
+        FenwickTree tree = new FenwickTree(new int[]{3, 1, 4, 1, 5}, 5);
+        tree.add(2, 10);
+        assertEquals(4, tree.prefixSum(2));
+        assertEquals(18, tree.prefixSum(3));
+        assertEquals(24, tree.prefixSum(5));
+    }
+
+    @Test
+    public void indexOfFindsTheRangeOfAnOffset() {
+        // Ranges [0, 3) [3, 4) [4, 8)
+        FenwickTree tree = new FenwickTree(new int[]{3, 1, 4}, 3);
+        assertEquals(0, tree.indexOf(0));
+        assertEquals(0, tree.indexOf(2));
+        assertEquals(1, tree.indexOf(3));
+        assertEquals(2, tree.indexOf(4));
+        assertEquals(2, tree.indexOf(7));
+        assertEquals(3, tree.indexOf(8));
+    }
+
+    @Test
+    public void emptyTree() {
+        FenwickTree tree = new FenwickTree(new int[0], 0);
+        assertEquals(0, tree.prefixSum(0));
+        assertEquals(0, tree.indexOf(0));
+    }
+
+    @Test
+    public void matchesALinearScanAfterRandomChanges() {
+        Random random = new Random(42);
+        for (int size = 1; size <= 40; size++) {
+            int[] values = new int[size];
+            for (int i = 0; i < size; i++) values[i] = 1 + random.nextInt(5);
+            FenwickTree tree = new FenwickTree(values.clone(), size);
+            for (int step = 0; step < 20; step++) {
+                int index = random.nextInt(size);
+                tree.add(index, 1);
+                values[index]++;
+                int sum = 0;
+                for (int i = 0; i < size; i++) {
+                    assertEquals(sum, tree.prefixSum(i));
+                    for (int offset = sum; offset < sum + values[i]; offset++) assertEquals(i, tree.indexOf(offset));
+                    sum += values[i];
+                }
+                assertEquals(size, tree.indexOf(sum));
+            }
+        }
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+
+public class KeyIndexTest {
+
+    /**
+     * Keys of "key:content" strings
+     */
+    private static final KeyExtractor<String> KEY_EXTRACTOR = new KeyExtractor<String>() {
+        @Override
+        public Object getKey(String item) {
+            return item.substring(0, item.indexOf(':'));
+        }
+    };
+
+    private final List<String> data = new ArrayList<String>();
+
+    private final KeyIndex<String> index = new KeyIndex<String>(KEY_EXTRACTOR);
+
+    @Test
+    public void indexesExistingItems() {
+        data.addAll(Arrays.asList("a:1", "b:1", "c:1"));
+        assertEquals(1, index.indexOf(data, "b:2"));
+        assertEquals(2, index.indexOfKey(data, "c"));
+        assertEquals(-1, index.indexOfKey(data, "d"));
+    }
+
+    @Test
+    public void shiftsPositionsAfterInsertion() {
+        data.addAll(Arrays.asList("a:1", "b:1", "c:1"));
+        index.indexOfKey(data, "a");
+        add(1, "x:1");
+        assertEquals(0, index.indexOfKey(data, "a"));
+        assertEquals(1, index.indexOfKey(data, "x"));
+        assertEquals(2, index.indexOfKey(data, "b"));
+        assertEquals(3, index.indexOfKey(data, "c"));
+    }
+
+    @Test
+    public void shiftsPositionsAfterRemoval() {
+        data.addAll(Arrays.asList("a:1", "b:1", "c:1", "d:1"));
+        index.indexOfKey(data, "a");
+        remove(1);
+        assertEquals(-1, index.indexOfKey(data, "b"));
+        assertEquals(1, index.indexOfKey(data, "c"));
+        assertEquals(2, index.indexOfKey(data, "d"));
+    }
+
+    @Test
+    public void findsTheNextDuplicate() {
+        data.addAll(Arrays.asList("a:1", "b:1", "a:2", "a:3"));
+        assertEquals(0, index.indexOfKey(data, "a"));
+        remove(0);
+        assertEquals(1, index.indexOfKey(data, "a"));
+        set(1, "c:1");
+        assertEquals(2, index.indexOfKey(data, "a"));
+        add(0, "a:4");
+        assertEquals(0, index.indexOfKey(data, "a"));
+    }
+
+    @Test
+    public void nullItemsAreNotIndexed() {
+        data.addAll(Arrays.asList("a:1", null, "b:1"));
+        assertEquals(2, index.indexOfKey(data, "b"));
+        assertEquals(1, index.indexOf(data, null));
+        remove(1);
+        assertEquals(1, index.indexOfKey(data, "b"));
+    }
+
+    @Test
+    public void rebuildsAfterTooManyShifts() {
+        for (int i = 0; i < 10; i++) data.add(i + ":0");
+        index.indexOfKey(data, "0");
+        for (int i = 0; i < KeyIndex.MAX_SHIFTS * 2; i++) add(0, "x" + i + ":0");
+        for (int i = 0; i < 10; i++) assertEquals(KeyIndex.MAX_SHIFTS * 2 + i, index.indexOfKey(data, String.valueOf(i)));
+    }
+
+    @Test
+    public void rebuildsAfterInvalidate() {
+        data.addAll(Arrays.asList("a:1", "b:1"));
+        index.indexOfKey(data, "a");
+        data.add(0, "c:1");
+        index.invalidate();
+        assertEquals(0, index.indexOfKey(data, "c"));
+        assertEquals(1, index.indexOfKey(data, "a"));
+    }
+
+    @Test
+    public void indexesItemsWithoutKeyExtractor() {
+        KeyIndex<String> identity = new KeyIndex<String>(null);
+        data.addAll(Arrays.asList("a", "b"));
+        assertEquals(1, identity.indexOf(data, "b"));
+        data.add(0, "c");
+        identity.onAdded(data, 0, "c");
+        assertEquals(2, identity.indexOf(data, "b"));
+    }
+
+    @Test
+    public void matchesAScanAfterRandomChanges() {
+        Random random = new Random(42);
+        for (int step = 0; step < 5000; step++) {
+            int action = random.nextInt(10);
+            String item = random.nextInt(20) == 0 ? null : (char) ('a' + random.nextInt(8)) + ":" + step;
+            if (action < 3 || data.isEmpty()) {
+                add(data.size(), item);
+            } else if (action < 5) {
+                add(random.nextInt(data.size() + 1), item);
+            } else if (action < 7) {
+                remove(random.nextInt(data.size()));
+            } else if (action < 9) {
+                set(random.nextInt(data.size()), item);
+            } else {
+                for (char key = 'a'; key < 'a' + 8; key++) {
+                    String k = String.valueOf(key);
+                    assertEquals("step " + step + ", key " + k, scan(k), index.indexOfKey(data, k));
+                }
+            }
+        }
+    }
+
+    private int scan(String key) {
+        for (int i = 0; i < data.size(); i++) {
+            String item = data.get(i);
+            if (item != null && KEY_EXTRACTOR.getKey(item).equals(key)) return i;
+        }
+        return -1;
+    }
+
+    private void add(int position, String item) {
+        data.add(position, item);
+        index.onAdded(data, position, item);
+    }
+
+    private void set(int position, String item) {
+        String old = data.set(position, item);
+        index.onSet(data, position, old, item);
+    }
+
+    private void remove(int position) {
+        String old = data.remove(position);
+        index.onRemoved(data, position, old);
+    }
+}
@@ -0,0 +1,166 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ListDiffTest {
+
+    /**
+     * Items are "id:content" strings, the same entity if their ids are equal
+     */
+    private static final ItemComparator<String> COMPARATOR = new ItemComparator<String>() {
+        @Override
+        public boolean areItemsTheSame(String oldItem, String newItem) {
+            return id(oldItem).equals(id(newItem));
+        }
+
+        @Override
+        public boolean areContentsTheSame(String oldItem, String newItem) {
+            return oldItem.equals(newItem);
+        }
+
+        private String id(String item) {
+            int colon = item.indexOf(':');
+            return colon == -1 ? item : item.substring(0, colon);
+        }
+    };
+
+    @Test
+    public void sameLists() {
+        ListDiff diff = ListDiff.compute(list("a", "b", "c"), list("a", "b", "c"), COMPARATOR);
+        assertArrayEquals(new int[]{0, 1, 2}, diff.oldToNew);
+        assertTrue(diff.isEmpty());
+    }
+
+    @Test
+    public void changedContent() {
+        ListDiff diff = ListDiff.compute(list("a", "b", "c"), list("a", "b:2", "c"), COMPARATOR);
+        assertArrayEquals(new int[]{0, 1, 2}, diff.oldToNew);
+        assertFalse(diff.isStructureChanged());
+        assertEquals(1, diff.changeCount);
+    }
+
+    @Test
+    public void insertionAndRemoval() {
+        ListDiff diff = ListDiff.compute(list("a", "b", "c", "d"), list("x", "a", "c", "d", "y"), COMPARATOR);
+        assertArrayEquals(new int[]{1, -1, 2, 3}, diff.oldToNew);
+        assertEquals(3, diff.matchCount);
+        assertTrue(diff.isStructureChanged());
+    }
+
+    @Test
+    public void middleChangesAreBacktracked() {
+        ListDiff diff = ListDiff.compute(list("p", "a", "b", "c", "a", "b", "b", "a", "s"),
+                list("p", "c", "b", "a", "b", "a", "c", "s"), COMPARATOR);
+        assertEquals(lcs(list("a", "b", "c", "a", "b", "b", "a"), list("c", "b", "a", "b", "a", "c")) + 2,
+                diff.matchCount);
+        assertValid(list("p", "a", "b", "c", "a", "b", "b", "a", "s"), list("p", "c", "b", "a", "b", "a", "c", "s"), diff);
+    }
+
+    @Test
+    public void emptyLists() {
+        assertArrayEquals(new int[]{-1, -1}, ListDiff.compute(list("a", "b"), list(), COMPARATOR).oldToNew);
+        ListDiff diff = ListDiff.compute(list(), list("a", "b"), COMPARATOR);
+        assertEquals(0, diff.oldSize);
+        assertEquals(2, diff.newSize);
+        assertTrue(diff.isStructureChanged());
+    }
+
+    @Test
+    public void newPositionOfSkipsRemovedItems() {
+        ListDiff diff = ListDiff.compute(list("a", "b", "c", "d"), list("a", "d"), COMPARATOR);
+        assertEquals(0, diff.newPositionOf(0));
+        assertEquals(1, diff.newPositionOf(1));
+        assertEquals(1, diff.newPositionOf(3));
+        assertEquals(-1, diff.newPositionOf(4));
+    }
+
+    @Test
+    public void givesUpAfterMaxEdits() {
+        List<String> oldList = new ArrayList<String>();
+        List<String> newList = new ArrayList<String>();
+        oldList.add("first");
+        newList.add("first");
+        for (int i = 0; i <= ListDiff.MAX_EDITS; i++) {
+            oldList.add("old" + i);
+            newList.add("new" + i);
+        }
+        oldList.add("last");
+        newList.add("last");
+        ListDiff diff = ListDiff.compute(oldList, newList, COMPARATOR);
+        assertEquals(2, diff.matchCount);
+        assertEquals(0, diff.oldToNew[0]);
+        assertEquals(newList.size() - 1, diff.oldToNew[oldList.size() - 1]);
+    }
+
+    @Test
+    public void matchesAsManyItemsAsTheLongestCommonSubsequence() {
+        Random random = new Random(42);
+        for (int run = 0; run < 500; run++) {
+            List<String> oldList = randomList(random);
+            List<String> newList = randomList(random);
+            ListDiff diff = ListDiff.compute(oldList, newList, COMPARATOR);
+            assertEquals(oldList + " -> " + newList, lcs(oldList, newList), diff.matchCount);
+            assertValid(oldList, newList, diff);
+        }
+    }
+
+    /**
+     * Matched items must be the same entity, in the same order in both lists.
+     */
+    private static void assertValid(List<String> oldList, List<String> newList, ListDiff diff) {
+        int previous = -1;
+        for (int i = 0; i < oldList.size(); i++) {
+            int newPosition = diff.oldToNew[i];
+            if (newPosition == -1) continue;
+            assertTrue(newPosition > previous);
+            assertTrue(COMPARATOR.areItemsTheSame(oldList.get(i), newList.get(newPosition)));
+            previous = newPosition;
+        }
+    }
+
+    private static int lcs(List<String> a, List<String> b) {
+        int[][] lengths = new int[a.size() + 1][b.size() + 1];
+        for (int i = 1; i <= a.size(); i++) {
+            for (int j = 1; j <= b.size(); j++) {
+                lengths[i][j] = COMPARATOR.areItemsTheSame(a.get(i - 1), b.get(j - 1))
+                        ? lengths[i - 1][j - 1] + 1 : Math.max(lengths[i - 1][j], lengths[i][j - 1]);
+            }
+        }
+        return lengths[a.size()][b.size()];
+    }
+
+    private static List<String> randomList(Random random) {
+        List<String> list = new ArrayList<String>();
+        for (int i = random.nextInt(12); i > 0; i--) list.add(String.valueOf((char) ('a' + random.nextInt(5))));
+        return list;
+    }
+
+    private static List<String> list(String... items) {
+        return new ArrayList<String>(Arrays.asList(items));
+    }
+}
@@ -0,0 +1,133 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LoadMoreStateTest {
+
+    private final LoadMoreState loadMore = new LoadMoreState();
+
+    @Test
+    public void idleWithoutListener() {
+        assertEquals(BaseQuickAdapter.LOAD_MORE_IDLE, loadMore.get());
+        assertFalse(loadMore.isActive());
+        assertFalse(loadMore.startIfEmpty(true));
+        assertFalse(loadMore.onDisplayed(9, 10));
+        assertFalse(loadMore.hasFooter(true));
+    }
+
+    @Test
+    public void startsOnlyWhenEmpty() {
+        loadMore.enable(0);
+        assertTrue(loadMore.isActive());
+        assertFalse(loadMore.startIfEmpty(false));
+        assertTrue(loadMore.startIfEmpty(true));
+        assertEquals(BaseQuickAdapter.LOAD_MORE_LOADING, loadMore.get());
+        assertFalse(loadMore.startIfEmpty(true));
+    }
+
+    @Test
+    public void startsWithinThePrefetchDistance() {
+        loadMore.enable(2);
+        assertFalse(loadMore.onDisplayed(6, 10));
+        assertTrue(loadMore.onDisplayed(7, 10));
+        assertTrue(loadMore.isLoading());
+        assertTrue(loadMore.hasFooter(false));
+        // Already loading
+        assertFalse(loadMore.onDisplayed(9, 10));
+    }
+
+    @Test
+    public void finishGoesBackToIdle() {
+        loadMore.enable(0);
+        loadMore.onDisplayed(9, 10);
+        assertTrue(loadMore.finish(false));
+        assertEquals(BaseQuickAdapter.LOAD_MORE_IDLE, loadMore.get());
+        assertFalse(loadMore.hasFooter(true));
+        assertTrue(loadMore.onDisplayed(19, 20));
+    }
+
+    @Test
+    public void exhaustedNeverStartsAgain() {
+        loadMore.enable(0);
+        loadMore.onDisplayed(9, 10);
+        assertTrue(loadMore.finish(true));
+        assertEquals(BaseQuickAdapter.LOAD_MORE_EXHAUSTED, loadMore.get());
+        assertFalse(loadMore.onDisplayed(9, 10));
+        assertFalse(loadMore.retry());
+        assertTrue(loadMore.hasFooter(true));
+        assertFalse(loadMore.hasFooter(false));
+    }
+
+    @Test
+    public void failThenRetry() {
+        loadMore.enable(0);
+        loadMore.onDisplayed(9, 10);
+        assertTrue(loadMore.fail());
+        assertEquals(BaseQuickAdapter.LOAD_MORE_ERROR, loadMore.get());
+        assertTrue(loadMore.hasFooter(false));
+        assertFalse(loadMore.onDisplayed(9, 10));
+        assertTrue(loadMore.retry());
+        assertTrue(loadMore.isLoading());
+        assertFalse(loadMore.retry());
+    }
+
+    @Test
+    public void finishAndFailAreIgnoredWhenNotLoading() {
+        loadMore.enable(0);
+        assertFalse(loadMore.finish(false));
+        assertFalse(loadMore.fail());
+        assertEquals(BaseQuickAdapter.LOAD_MORE_IDLE, loadMore.get());
+    }
+
+    @Test
+    public void disableStopsLoadingUntilReset() {
+        loadMore.enable(0);
+        loadMore.onDisplayed(9, 10);
+        loadMore.disable();
+        assertFalse(loadMore.isLoading());
+        assertTrue(loadMore.isActive());
+        loadMore.reset();
+        assertEquals(BaseQuickAdapter.LOAD_MORE_IDLE, loadMore.get());
+        assertFalse(loadMore.isActive());
+        assertFalse(loadMore.startIfEmpty(true));
+        assertFalse(loadMore.onDisplayed(9, 10));
+    }
+
+    @Test
+    public void retryNeedsAListener() {
+        loadMore.enable(0);
+        loadMore.onDisplayed(9, 10);
+        loadMore.fail();
+        loadMore.disable();
+        assertFalse(loadMore.retry());
+        assertEquals(BaseQuickAdapter.LOAD_MORE_ERROR, loadMore.get());
+    }
+
+    @Test
+    public void resetAfterExhausted() {
+        loadMore.enable(0);
+        loadMore.onDisplayed(0, 1);
+        loadMore.finish(true);
+        loadMore.reset();
+        assertTrue(loadMore.startIfEmpty(true));
+    }
+}
@@ -0,0 +1,80 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LongIntMapTest {
+
+    private final LongIntMap map = new LongIntMap();
+
+    @Test
+    public void missingKey() {
+        assertEquals(-1, map.get(42, -1));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    public void putIfAbsentKeepsTheFirstValue() {
+        assertTrue(map.putIfAbsent(42, 1));
+        assertFalse(map.putIfAbsent(42, 2));
+        assertEquals(1, map.get(42, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void extremeKeys() {
+        map.putIfAbsent(Long.MIN_VALUE, 1);
+        map.putIfAbsent(Long.MAX_VALUE, 2);
+        map.putIfAbsent(0, 3);
+        assertEquals(1, map.get(Long.MIN_VALUE, -1));
+        assertEquals(2, map.get(Long.MAX_VALUE, -1));
+        assertEquals(3, map.get(0, -1));
+    }
+
+    @Test
+    public void keepsValuesWhileGrowing() {
+        Map<Long, Integer> expected = new HashMap<Long, Integer>();
+        Random random = new Random(42);
+        for (int i = 0; i < 10000; i++) {
+            long key = random.nextLong();
+            if (map.putIfAbsent(key, i)) expected.put(key, i);
+        }
+        assertEquals(expected.size(), map.size());
+        for (Map.Entry<Long, Integer> entry : expected.entrySet()) {
+            assertEquals((int) entry.getValue(), map.get(entry.getKey(), -1));
+        }
+    }
+
+    @Test
+    public void clear() {
+        for (int i = 0; i < 100; i++) map.putIfAbsent(i, i);
+        map.clear(10);
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(5, -1));
+        map.clear(1000);
+        assertTrue(map.putIfAbsent(5, 1));
+        assertEquals(1, map.get(5, -1));
+    }
+}
@@ -0,0 +1,183 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class ViewModelCacheTest {
+
+    /**
+     * View-models are strings weighing their length
+     */
+    private static final BaseQuickAdapter.ViewModelWeigher<Object> LENGTH = new BaseQuickAdapter.ViewModelWeigher<Object>() {
+        @Override
+        public int weightOf(Object viewModel) {
+            return ((String) viewModel).length();
+        }
+    };
+
+    @Test
+    public void countsHitsAndMisses() {
+        ViewModelCache cache = new ViewModelCache(10);
+        cache.put("a", "item", "vm");
+        assertEquals("vm", cache.get("a"));
+        assertNull(cache.get("b"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+        cache.resetCounts();
+        assertEquals(0, cache.getHitCount());
+        assertEquals(0, cache.getMissCount());
+    }
+
+    @Test
+    public void evictsTheLeastRecentlyUsed() {
+        ViewModelCache cache = new ViewModelCache(2);
+        cache.put("a", "item", "a");
+        cache.put("b", "item", "b");
+        cache.get("a");
+        cache.put("c", "item", "c");
+        assertTrue(cache.contains("a"));
+        assertFalse(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+    }
+
+    @Test
+    public void evictsByWeight() {
+        ViewModelCache cache = new ViewModelCache(0);
+        cache.setMaxWeight(10, LENGTH);
+        cache.put("a", "item", "aaaa");
+        cache.put("b", "item", "bbbb");
+        assertEquals(2, cache.size());
+        cache.put("c", "item", "cccc");
+        assertEquals(2, cache.size());
+        assertFalse(cache.contains("a"));
+        // Heavier than the maximum, evicts everything including itself
+        cache.put("d", "item", "ddddddddddd");
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    public void replacingAnEntryReplacesItsWeight() {
+        ViewModelCache cache = new ViewModelCache(0);
+        cache.setMaxWeight(10, LENGTH);
+        cache.put("a", "item", "aaaaaaaa");
+        cache.put("a", "item", "a");
+        cache.put("b", "item", "bbbbbbbbb");
+        assertTrue(cache.contains("a"));
+        assertTrue(cache.contains("b"));
+    }
+
+    @Test
+    public void changingTheWeigherReweighsAndTrims() {
+        ViewModelCache cache = new ViewModelCache(3);
+        cache.put("a", "item", "aaaa");
+        cache.put("b", "item", "bbbb");
+        cache.put("c", "item", "cccc");
+        cache.setMaxWeight(8, LENGTH);
+        assertEquals(2, cache.size());
+        assertFalse(cache.contains("a"));
+        cache.setMaxWeight(8, null);
+        cache.put("d", "item", "dddddddddddd");
+        assertEquals(3, cache.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void rejectsNegativeWeights() {
+        ViewModelCache cache = new ViewModelCache(0);
+        cache.setMaxWeight(10, new BaseQuickAdapter.ViewModelWeigher<Object>() {
+            @Override
+            public int weightOf(Object viewModel) {
+                return -1;
+            }
+        });
+        cache.put("a", "item", "vm");
+    }
+
+    @Test
+    public void removeFreesItsWeight() {
+        ViewModelCache cache = new ViewModelCache(2);
+        cache.put("a", "item", "a");
+        cache.put("b", "item", "b");
+        cache.remove("a");
+        cache.put("c", "item", "c");
+        assertTrue(cache.contains("b"));
+        assertTrue(cache.contains("c"));
+    }
+
+    @Test
+    public void retainKeepsTheViewModelsOfUnchangedItems() {
+        ItemComparator<String> comparator = new ItemComparator<String>() {
+            @Override
+            public boolean areItemsTheSame(String oldItem, String newItem) {
+                return oldItem.charAt(0) == newItem.charAt(0);
+            }
+
+            @Override
+            public boolean areContentsTheSame(String oldItem, String newItem) {
+                return oldItem.length() == newItem.length();
+            }
+        };
+        ViewModelCache cache = new ViewModelCache(10);
+        String same = "same";
+        cache.put(1, same, "vm1");
+        cache.put(2, "equal", "vm2");
+        cache.put(3, "changed", "vm3");
+        cache.put(4, "removed", "vm4");
+        Map<Object, String> current = new HashMap<Object, String>();
+        current.put(1, same);
+        current.put(2, "eXXXX");
+        current.put(3, "changed!");
+        cache.retain(current, comparator);
+        assertSame("vm1", cache.get(1));
+        assertEquals("vm2", cache.get(2));
+        assertFalse(cache.contains(3));
+        assertFalse(cache.contains(4));
+
+        // Without comparator, only the same items are kept
+        cache.retain(new HashMap<Object, String>(current), null);
+        assertTrue(cache.contains(1));
+        assertFalse(cache.contains(2));
+    }
+
+    @Test
+    public void retainFreesTheWeightOfRemovedEntries() {
+        ViewModelCache cache = new ViewModelCache(2);
+        cache.put("a", "item", "a");
+        cache.put("b", "item", "b");
+        cache.retain(new HashMap<Object, String>(), null);
+        assertEquals(0, cache.size());
+        cache.put("c", "item", "c");
+        cache.put("d", "item", "d");
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    public void identityKeys() {
+        String item = new String("item");
+        assertTrue(new ViewModelCache.IdentityKey(item).equals(new ViewModelCache.IdentityKey(item)));
+        assertFalse(new ViewModelCache.IdentityKey(item).equals(new ViewModelCache.IdentityKey(new String("item"))));
+        assertEquals(new ViewModelCache.IdentityKey(item).hashCode(), new ViewModelCache.IdentityKey(item).hashCode());
+    }
+}
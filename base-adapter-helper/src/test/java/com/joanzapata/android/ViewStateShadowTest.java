@@ -0,0 +1,95 @@
+/**
+ * Copyright 2013 Joan Zapata
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.joanzapata.android;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ViewStateShadowTest {
+
+    private final ViewStateShadow shadow = new ViewStateShadow();
+
+    @Test
+    public void firstUpdateIsAChange() {
+        assertTrue(shadow.update(1, ViewStateShadow.ALPHA, 10L));
+        assertTrue(shadow.update(1, ViewStateShadow.TEXT, "a"));
+    }
+
+    @Test
+    public void sameValueIsNotAChange() {
+        shadow.update(1, ViewStateShadow.ALPHA, 10L);
+        assertFalse(shadow.update(1, ViewStateShadow.ALPHA, 10L));
+        assertTrue(shadow.update(1, ViewStateShadow.ALPHA, 11L));
+        assertFalse(shadow.update(1, ViewStateShadow.ALPHA, 11L));
+    }
+
+    @Test
+    public void equalObjectIsNotAChange() {
+        shadow.update(1, ViewStateShadow.TEXT, "text");
+        assertFalse(shadow.update(1, ViewStateShadow.TEXT, new String("text")));
+        assertTrue(shadow.update(1, ViewStateShadow.TEXT, "other"));
+    }
+
+    @Test
+    public void nullObjectIsAlwaysAChange() {
+        assertTrue(shadow.update(1, ViewStateShadow.TEXT, (Object) null));
+        assertTrue(shadow.update(1, ViewStateShadow.TEXT, (Object) null));
+    }
+
+    @Test
+    public void objectThenPrimitiveIsAChange() {
+        shadow.update(1, ViewStateShadow.TEXT, "text");
+        assertTrue(shadow.update(1, ViewStateShadow.TEXT, 0L));
+        assertFalse(shadow.update(1, ViewStateShadow.TEXT, 0L));
+    }
+
+    @Test
+    public void propertiesAndViewsAreIndependent() {
+        shadow.update(1, ViewStateShadow.TEXT_COLOR, 5L);
+        assertTrue(shadow.update(1, ViewStateShadow.ALPHA, 5L));
+        assertTrue(shadow.update(2, ViewStateShadow.TEXT_COLOR, 5L));
+        assertFalse(shadow.update(1, ViewStateShadow.TEXT_COLOR, 5L));
+    }
+
+    @Test
+    public void keepsValuesWhileGrowing() {
+        // Ids inserted in decreasing order, so that each one goes to the front
+        for (int id = 100; id > 0; id--) assertTrue(shadow.update(id, ViewStateShadow.ALPHA, id));
+        for (int id = 1; id <= 100; id++) assertFalse(shadow.update(id, ViewStateShadow.ALPHA, id));
+    }
+
+    @Test
+    public void forgottenValueIsAChange() {
+        shadow.update(1, ViewStateShadow.ALPHA, 10L);
+        shadow.update(2, ViewStateShadow.ALPHA, 10L);
+        shadow.forget(1, ViewStateShadow.ALPHA);
+        assertTrue(shadow.update(1, ViewStateShadow.ALPHA, 10L));
+        assertFalse(shadow.update(2, ViewStateShadow.ALPHA, 10L));
+        // Nothing to forget
+        shadow.forget(3, ViewStateShadow.ALPHA);
+    }
+
+    @Test
+    public void clearForgetsEverything() {
+        shadow.update(1, ViewStateShadow.ALPHA, 10L);
+        shadow.update(1, ViewStateShadow.TEXT, "text");
+        shadow.clear();
+        assertTrue(shadow.update(1, ViewStateShadow.ALPHA, 10L));
+        assertTrue(shadow.update(1, ViewStateShadow.TEXT, "text"));
+    }
+}